@@ -3,13 +3,32 @@
  * use the left, right, top, and bottom arrows to navigate the maze
  * 
  * hit the "r" key to reset the maze to a new random maze, 
- * the game mode will be reset to manual as well.
+ * the game mode will be reset to manual as well. the new maze is built in the
+ * background, and the old one stays in play until it is ready. a world given a
+ * pool of ready mazes with usePool swaps one in straight away.
  * 
  * hit "b" to trigger bfs
  * 
  * hit "d" to trigger dfs
  * 
- * please wait until the board is finished drawing to use bfs or dfs!
+ * hit "a" to walk the shortest path found by A*
+ * 
+ * hit "h" for a hint: the next cell towards the goal turns yellow
+ * 
+ * hitting "b", "d" or "a" while the board is still drawing finishes it right away.
+ * 
+ * hit "s" to save the maze to maze.bin, and "l" to load it back.
+ * 
+ * hit "p" to show or hide tick and frame timings in the top left corner.
+ * 
+ * mazes too big for the window show the part around the player, which the view
+ * follows. hit "+" or "-" to zoom in or out, and "8", "4", "6" or "2" to look
+ * up, left, right or down.
+ * the drawing takes about 200 ticks whatever the size of the maze; pass 0
+ * generationTicks to the MazeWorld constructor to skip it altogether.
+ * 
+ * mazes are carved with Kruskal's algorithm unless the MazeWorld constructor is
+ * given another MazeGenerator (backtracker, Prim, Wilson or Eller).
  * 
  * the board is prettiest when the supplied integer to bigbang is a multiple of 4.
  * 
@@ -22,12 +41,56 @@ import java.util.Arrays;
 import java.util.ArrayDeque;
 
 import tester.*;
-import java.util.Random;
+import java.util.SplittableRandom;
 import javalib.impworld.*;
 import java.awt.Color;
 import javalib.worldimages.*;
-import java.util.HashMap;
 import java.util.Comparator;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.sun.management.ThreadMXBean;
+import java.io.OutputStream;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Label;
+import jdk.jfr.Category;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.EOFException;
+import java.io.File;
+import java.awt.image.BufferedImage;
+import javax.imageio.ImageIO;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 //Represents a mutable collection of items
 interface ICollection<T> {
@@ -92,535 +155,3820 @@ class Queue<T> implements ICollection<T> {
   }
 }
 
-// data representing a vertex in a graph
-class Vertex {
-  int x;
-  int y;
-  int size;
-  Color color;
-  boolean traced;
-  // edges
-  Edge left;
-  Edge right;
-  Edge top;
-  Edge bottom;
-
-  // constructor with every field supplied
-  Vertex(int x, int y, int size, Color color, boolean traced, Edge left, Edge right, Edge top,
-      Edge bottom) {
-    this.x = x;
-    this.y = y;
-    this.size = size;
-    this.color = Color.gray;
-    this.traced = traced;
-    this.left = left;
-    this.right = right;
-    this.top = top;
-    this.bottom = bottom;
-  }
+// read access to the walls of a maze however it is stored, on the heap or in a
+// mapped file. Cells are long ids (y * columns + x), so a maze may have more
+// cells than an int can count
+interface MazeWalls {
+  // the number of cells in each row
+  int columns();
 
-  // draws a vertex
-  WorldImage drawVertex(ArrayList<Edge> list) {
-    // horizontal line image
-    WorldImage hori = new LineImage(new Posn(size, 0), Color.BLACK);
-    // vertical line image
-    WorldImage verti = new LineImage(new Posn(0, size), Color.BLACK);
-    // square image of the vertex itself
-    WorldImage vertex = new RectangleImage(this.size, this.size, OutlineMode.SOLID, this.color);
-    // adds a line to denote an edge to each side of the vertex
-    if (this.left != null && !list.contains(this.left)) {
-      vertex = new BesideImage(verti, vertex);
-    }
-    if (this.right != null && !list.contains(this.right)) {
-      vertex = new BesideImage(vertex, verti);
-    }
-    if (this.top != null && !list.contains(this.top)) {
-      vertex = new AboveImage(hori, vertex);
-    }
-    if (this.bottom != null && !list.contains(this.bottom)) {
-      vertex = new AboveImage(vertex, hori);
+  // the number of rows of cells
+  int rows();
+
+  // determines if the given side of the supplied cell is an open passage
+  boolean isPassage(long cell, int side);
+}
+
+// the cells of any MazeWalls as int ids, with the neighbour arithmetic of a
+// MazeGrid, so the searches and the index, which keep an int per cell, can run
+// on a mapped maze as well as a grid, as long as its cells fit in an int
+class WallCells {
+  MazeWalls maze;
+  int width;
+  int count;
+
+  // the cells of the supplied maze, which throws if there are too many of them
+  // to keep an int array of
+  WallCells(MazeWalls maze) {
+    long cells = (long) maze.columns() * maze.rows();
+    if (cells > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("too many cells to search: " + cells);
     }
-    return vertex;
+    this.maze = maze;
+    this.width = maze.columns();
+    this.count = (int) cells;
   }
 
-  // // equals override for vertices
-  // public boolean equals(Object o) {
-  // if (!(o instanceof Vertex)) {
-  // return false;
-  // }
-  // // this cast is safe, because we just checked instanceof
-  // Vertex that = (Vertex) o;
-  // return this.x == that.x && this.y == that.y && this.color.equals(that.color)
-  // && this.traced == that.traced;
-  // }
+  // the number of cells in the maze
+  int cellCount() {
+    return this.count;
+  }
 
-  // modifies the cell to be blue, and traced
-  public void modifyCell() {
-    this.color = Color.blue;
-    this.traced = true;
+  // the column of the supplied cell
+  int xOf(int cell) {
+    return cell % this.width;
   }
-}
 
-// comparator class for an Edge
-class EdgeComparator implements Comparator<Edge> {
+  // the row of the supplied cell
+  int yOf(int cell) {
+    return cell / this.width;
+  }
 
-  // compares two edges by weight
-  public int compare(Edge o1, Edge o2) {
-    return o1.compareTo(o2);
+  // determines if the given side of the supplied cell is an open passage
+  boolean hasPassage(int cell, int side) {
+    return this.maze.isPassage(cell, side);
   }
 
+  // the id of the cell on the given side of the supplied one
+  int neighbor(int cell, int side) {
+    if (side == MazeGrid.LEFT) {
+      return cell - 1;
+    }
+    else if (side == MazeGrid.RIGHT) {
+      return cell + 1;
+    }
+    else if (side == MazeGrid.TOP) {
+      return cell - this.width;
+    }
+    else {
+      return cell + this.width;
+    }
+  }
 }
 
-// class representing an Edge in a graph
-class Edge implements Comparable<Edge> {
-  Vertex from;
-  Vertex to;
-  int weight;
+// a compact grid of maze cells. Every cell is an int id (y * width + x), its
+// walls are a bitmask of the sides that have been opened into passages, and its
+// colour (an index into the Palette) and traced state are kept in parallel
+// primitive arrays, so a cell costs three bytes
+class MazeGrid implements MazeWalls {
+  // the bits of a cell's passage mask, one per side
+  static final int LEFT = 1;
+  static final int RIGHT = 2;
+  static final int TOP = 4;
+  static final int BOTTOM = 8;
 
-  // constructor taking in all fields
-  Edge(Vertex from, Vertex to, int weight) {
-    this.from = from;
-    this.to = to;
-    this.weight = weight;
+  int width;
+  int height;
+  byte[] passages;
+  byte[] colors;
+  boolean[] traced;
+  DirtyCells dirty;
+
+  // creates a grid of walled-in, untraced gray cells
+  MazeGrid(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.passages = new byte[width * height];
+    this.colors = new byte[width * height];
+    this.traced = new boolean[width * height];
+    Arrays.fill(this.colors, Palette.UNVISITED);
+    this.dirty = null;
   }
 
-  // modifies the edge if it's bottom/right of the vertex that called it
-  public Vertex modifyBREdge() {
-    this.to.modifyCell();
-    return this.to;
+  // the number of cells in this grid
+  int cellCount() {
+    return this.width * this.height;
   }
 
-  // modifies the edge if it's the top/left of the vertex that called it
-  public Vertex modifyTLEdge() {
-    this.from.modifyCell();
-    return this.from;
+  // the id of the cell at the supplied coordinates
+  int cellAt(int x, int y) {
+    return (y * this.width) + x;
   }
 
-  // the compareTo method comparing two Edges by weight
-  public int compareTo(Edge o) {
-    return this.weight - o.weight;
+  // the column of the supplied cell
+  int xOf(int cell) {
+    return cell % this.width;
   }
-}
 
-// MazeWorld class
-class MazeWorld extends World {
-  int width;
-  int height;
-  ArrayList<Vertex> vertices;
-  ArrayList<Edge> worklist;
-  ArrayList<Edge> edgesInTree;
-  ArrayList<Integer> weights;
-  HashMap<Vertex, Vertex> representatives;
-  int xCells;
-  int yCells;
-  int cellSize;
-  int time;
-  Vertex curVer;
-  String gameMode;
+  // the row of the supplied cell
+  int yOf(int cell) {
+    return cell / this.width;
+  }
 
-  // initializes the game with just the number of cells per row supplied
-  MazeWorld(int xCells) {
-    this.width = 800;
-    this.height = 600;
-    this.vertices = new ArrayList<Vertex>();
-    this.worklist = new ArrayList<Edge>();
-    this.edgesInTree = new ArrayList<Edge>();
-    this.representatives = new HashMap<Vertex, Vertex>();
-    this.weights = new ArrayList<Integer>();
-    this.xCells = xCells;
-    this.yCells = (xCells / 4) * 3;
-    this.cellSize = this.width / this.xCells;
-    this.time = 0;
-    this.curVer = null;
-    this.gameMode = "m";
+  // determines if the supplied cell has a neighbor on the given side
+  boolean hasNeighbor(int cell, int side) {
+    if (side == LEFT) {
+      return this.xOf(cell) > 0;
+    }
+    else if (side == RIGHT) {
+      return this.xOf(cell) < this.width - 1;
+    }
+    else if (side == TOP) {
+      return this.yOf(cell) > 0;
+    }
+    else {
+      return this.yOf(cell) < this.height - 1;
+    }
   }
 
-  // initializes the game to an ArrayList of vertices
-  MazeWorld(ArrayList<Vertex> vertices, int xCells) {
-    this.width = 800;
-    this.height = 600;
-    this.vertices = vertices;
-    this.worklist = new ArrayList<Edge>();
-    this.edgesInTree = new ArrayList<Edge>();
-    this.representatives = new HashMap<Vertex, Vertex>();
-    this.weights = new ArrayList<Integer>();
-    this.xCells = xCells;
-    this.yCells = (xCells / 4) * 3;
-    this.cellSize = this.width / this.xCells;
-    this.time = 0;
-    this.curVer = null;
-    this.gameMode = "m";
+  // the id of the neighbor on the given side of the supplied cell
+  int neighbor(int cell, int side) {
+    if (side == LEFT) {
+      return cell - 1;
+    }
+    else if (side == RIGHT) {
+      return cell + 1;
+    }
+    else if (side == TOP) {
+      return cell - this.width;
+    }
+    else {
+      return cell + this.width;
+    }
   }
 
-  // builds the world based on the inputted number of cells per row of the Maze
-  public MazeWorld buildWorld() {
-    if (this.xCells < 4) {
-      this.yCells = this.xCells;
+  // the side facing the given side from the neighboring cell
+  int opposite(int side) {
+    if (side == LEFT) {
+      return RIGHT;
     }
-    // creates a vertex for each value
-    for (int y = 0; y < this.yCells; y = y + 1) {
-      for (int x = 0; x < this.xCells; x = x + 1) {
-        Vertex newVert = (new Vertex(x, y, this.cellSize, Color.gray, false, null, null, null,
-            null));
-        this.vertices.add(newVert);
-        this.representatives.put(newVert, newVert);
-      }
-    }
-    // creates a list of integers to randomize weights with
-    for (int i = 0; i < ((this.xCells * this.yCells) * 2) - 1; i++) {
-      this.weights.add(i);
-    }
-    // initializes Vertexes to refer to each other through Edges left, right, top,
-    // and bottom
-    for (int y = 0; y < this.yCells; y = y + 1) {
-      for (int x = 0; x < this.xCells; x = x + 1) {
-
-        Vertex v1 = vertices.get((y * this.xCells) + x);
-        Random rand = new Random();
-
-        // EFFECT: initializes the top edge
-        if ((y > 0) && v1.top == null) {
-          int random1 = rand.nextInt(this.weights.size());
-          Edge topEdge = new Edge(this.findTop(x, y), v1, this.weights.get(random1));
-          this.weights.remove(random1);
-          v1.top = topEdge;
-          this.findTop(x, y).bottom = topEdge;
-          this.worklist.add(topEdge);
-        }
+    else if (side == RIGHT) {
+      return LEFT;
+    }
+    else if (side == TOP) {
+      return BOTTOM;
+    }
+    else {
+      return TOP;
+    }
+  }
 
-        // EFFECT: initializes the bottom edge
-        if ((y < this.yCells - 1) && v1.bottom == null) {
-          int random2 = rand.nextInt(this.weights.size());
-          Edge bottomEdge = new Edge(v1, this.findBottom(x, y), this.weights.get(random2));
-          this.weights.remove(random2);
-          v1.bottom = bottomEdge;
-          this.findBottom(x, y).top = bottomEdge;
-          this.worklist.add(bottomEdge);
-        }
+  // the side of the from cell that faces the adjacent to cell
+  int sideTowards(int from, int to) {
+    if (to == from - 1) {
+      return LEFT;
+    }
+    else if (to == from + 1) {
+      return RIGHT;
+    }
+    else if (to == from - this.width) {
+      return TOP;
+    }
+    else {
+      return BOTTOM;
+    }
+  }
 
-        // EFFECT: initializes the left edge
-        if ((x > 0) && v1.left == null) {
-          int random3 = rand.nextInt(this.weights.size());
-          Edge leftEdge = new Edge(this.findLeft(x, y), v1, this.weights.get(random3));
-          this.weights.remove(random3);
-          v1.left = leftEdge;
-          this.findLeft(x, y).right = leftEdge;
-          this.worklist.add(leftEdge);
-        }
+  // determines if the given side of the supplied cell is an open passage
+  boolean hasPassage(int cell, int side) {
+    return (this.passages[cell] & side) != 0;
+  }
 
-        // EFFECT: initializes the right edge
-        if ((x < this.xCells - 1) && v1.right == null) {
-          int random4 = rand.nextInt(this.weights.size());
-          Edge rightEdge = new Edge(v1, this.findRight(x, y), this.weights.get(random4));
-          this.weights.remove(random4);
-          v1.right = rightEdge;
-          this.findRight(x, y).left = rightEdge;
-          this.worklist.add(rightEdge);
-        }
-      }
-    }
-    // EFFECT: sorts the worklist by weight
-    new ArrayUtils().quicksort(this.worklist, new EdgeComparator());
-    // EFFECT: first cell is green
-    this.vertices.get(0).color = Color.green;
-    // EFFECT: the current operating cell is the first cell
-    this.curVer = this.vertices.get(0);
-    // EFFECT: last cell is purple
-    this.vertices.get(vertices.size() - 1).color = Color.magenta;
-    return this;
+  // the number of cells in each row
+  public int columns() {
+    return this.width;
   }
 
-  // finds the Vertex to the left of the specified coordinates
-  public Vertex findLeft(int x, int y) {
-    return this.vertices.get((y * this.xCells) + x - 1);
+  // the number of rows of cells
+  public int rows() {
+    return this.height;
   }
 
-  // finds the Vertex to the top of the specified coordinates
-  public Vertex findTop(int x, int y) {
-    return this.vertices.get(((y - 1) * this.xCells) + x);
+  // determines if the given side of the supplied cell is an open passage
+  public boolean isPassage(long cell, int side) {
+    return this.hasPassage((int) cell, side);
   }
 
-  // finds the Vertex to the right of the specified coordinates
-  public Vertex findRight(int x, int y) {
-    return this.vertices.get((y * this.xCells) + x + 1);
+  // determines if the given side of the supplied cell is a wall to a neighbor
+  boolean hasWall(int cell, int side) {
+    return this.hasNeighbor(cell, side) && !this.hasPassage(cell, side);
   }
 
-  // finds the Vertex to the bottom of the specified coordinates
-  public Vertex findBottom(int x, int y) {
-    return this.vertices.get(((y + 1) * this.xCells) + x);
+  // the number of ids in this grid's edge id space. Every cell owns the ids of
+  // the edges on its right (2 * cell) and bottom (2 * cell + 1) sides; the ids
+  // on the last column and row name no edge
+  int edgeIdCount() {
+    return this.cellCount() * 2;
   }
 
-  // makeScene method for this maze
-  public WorldScene makeScene() {
-    WorldScene s = new WorldScene(this.width, this.height);
-    s.placeImageXY(this.draw(), this.width / 2, this.height / 2);
-    return s;
+  // the number of edges between adjacent cells of this grid
+  int edgeCount() {
+    return ((this.width - 1) * this.height) + (this.width * (this.height - 1));
   }
 
-  // visualizes every vertex and edge in the graph
-  public WorldImage draw() {
-    WorldImage base = new EmptyImage();
-    WorldImage winText = new TextImage("YOU WIN!", 50, Color.black);
-    for (int i = 0; i < this.vertices.size(); i = i + 1) {
-      // offsetAlign the new Vertex image with the previous base
-      // offset by multiplying Vertex coordinates by size
-      base = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-          this.vertices.get(i).drawVertex(this.edgesInTree),
-          this.vertices.get(i).x * -this.cellSize, this.vertices.get(i).y * -this.cellSize, base);
-    }
-    if (this.curVer.equals(this.vertices.get(vertices.size() - 1))) {
-      base = new OverlayImage(winText, base);
-      // for (int i = 0; i < this.representatives.size(); i++) {
-      // Vertex current = this.representatives.get(this.vertices.get(i));
-      // if (this.representatives.get(current)
-      // .equals(this.representatives.get(this.vertices.get(this.vertices.size() -
-      // 1)))) {
-      // this.representatives.get(current).color = Color.blue;
-      // }
-      // }
+  // the id of the edge on the right or bottom side of the supplied cell
+  int edgeId(int cell, int side) {
+    if (side == RIGHT) {
+      return cell * 2;
+    }
+    else {
+      return (cell * 2) + 1;
     }
-    return base;
   }
 
-  // onTick method
-  // EFFECT: removes walls from smallest to largest weight
-  public void onTick() {
-    if (this.edgesInTree.size() < this.vertices.size() - 1) {
-      Edge curEdge = this.worklist.get(time);
-      Vertex curFrom = curEdge.from;
-      Vertex curTo = curEdge.to;
-      if (!this.sameReps(curFrom, curTo)) {
-        this.union(this.representatives, curFrom, curTo);
-        this.edgesInTree.add(curEdge);
-      }
-    }
-    // iterates through the game as long as the maze is not complete
-    if (this.curVer != this.vertices.get(vertices.size() - 1)) {
-      // the bfs game mode
-      if (this.gameMode.equals("b")) {
-        ArrayList<Vertex> path = this.bfs(this.vertices.get(0),
-            this.vertices.get(this.vertices.size() - 1));
-        path.add(this.vertices.get(this.vertices.size() - 1));
-        if (this.time < path.size()) {
-          this.curVer = path.get(this.time);
-          this.curVer.color = new Color(137, 207, 240);
-          this.curVer.traced = true;
-        }
-      }
-      // the dfs game mode
-      if (this.gameMode.equals("d")) {
-        ArrayList<Vertex> path = this.dfs(this.vertices.get(0),
-            this.vertices.get(this.vertices.size() - 1));
-        path.add(this.vertices.get(this.vertices.size() - 1));
-        if (this.time < path.size()) {
-          this.curVer = path.get(this.time);
-          this.curVer.color = new Color(137, 207, 240);
-          this.curVer.traced = true;
-        }
-      }
+  // the cell on the top/left end of the supplied edge
+  int edgeFrom(int edge) {
+    return edge / 2;
+  }
+
+  // the cell on the bottom/right end of the supplied edge
+  int edgeTo(int edge) {
+    if (edge % 2 == 0) {
+      return this.edgeFrom(edge) + 1;
+    }
+    else {
+      return this.edgeFrom(edge) + this.width;
     }
-    this.time++;
   }
 
-  // the on key event method
-  public void onKeyEvent(String k) {
-    // makes sure the game mode is manual
-    if (this.gameMode.equals("m") && this.curVer != this.vertices.get(vertices.size() - 1)) {
-      // left key event
-      if (k.equals("left") && curVer.left != null && this.edgesInTree.contains(curVer.left)) {
-        this.curVer.color = new Color(137, 207, 240);
-        curVer = curVer.left.modifyTLEdge();
-      }
-      // right key event
-      if (k.equals("right") && curVer.right != null && this.edgesInTree.contains(curVer.right)) {
-        this.curVer.color = new Color(137, 207, 240);
-        curVer = curVer.right.modifyBREdge();
-      }
-      // up key event
-      if (k.equals("up") && curVer.top != null && this.edgesInTree.contains(curVer.top)) {
-        this.curVer.color = new Color(137, 207, 240);
-        curVer = curVer.top.modifyTLEdge();
-      }
-      // down key event
-      if (k.equals("down") && curVer.bottom != null && this.edgesInTree.contains(curVer.bottom)) {
-        this.curVer.color = new Color(137, 207, 240);
-        curVer = curVer.bottom.modifyBREdge();
-      }
+  // the id of the edge on the given side of the supplied cell
+  int edgeBetween(int cell, int side) {
+    if (side == RIGHT || side == BOTTOM) {
+      return this.edgeId(cell, side);
+    }
+    else {
+      return this.edgeId(this.neighbor(cell, side), this.opposite(side));
     }
+  }
 
-    // resets the game to a new random board, and to the manual mode
-    if (k.equals("r")) {
-      this.vertices = new ArrayList<Vertex>();
-      this.worklist = new ArrayList<Edge>();
-      this.edgesInTree = new ArrayList<Edge>();
-      this.representatives = new HashMap<Vertex, Vertex>();
-      this.weights = new ArrayList<Integer>();
-      this.time = 0;
-      this.buildWorld();
-      this.curVer = this.vertices.get(0);
-      this.gameMode = "m";
+  // determines if the supplied edge has been opened into a passage
+  boolean isOpen(int edge) {
+    if (edge % 2 == 0) {
+      return this.hasPassage(this.edgeFrom(edge), RIGHT);
     }
-    // resets the game to be in manual mode
-    if (k.equals("m") && !this.gameMode.equals("m")) {
-      for (int i = 0; i < this.vertices.size() - 1; i++) {
-        this.vertices.get(i).color = Color.gray;
-        this.vertices.get(i).traced = false;
-      }
-      this.curVer = this.vertices.get(0);
-      this.vertices.get(0).color = Color.green;
-      this.vertices.get(0).traced = true;
-      this.time = 0;
-      this.gameMode = "m";
-      this.curVer = this.vertices.get(0);
-      this.vertices.get(this.vertices.size() - 1).color = Color.magenta;
-      this.vertices.get(this.vertices.size() - 1).traced = false;
+    else {
+      return this.hasPassage(this.edgeFrom(edge), BOTTOM);
     }
-    // changes the gamemode to dfs
-    if (k.equals("d") && !this.gameMode.equals("d")) {
-      for (int i = 1; i < this.vertices.size() - 1; i++) {
-        this.vertices.get(i).color = Color.gray;
-        this.vertices.get(i).traced = false;
+  }
+
+  // the ids of every edge between adjacent cells, in row-major order
+  int[] edgeIds() {
+    int[] edges = new int[this.edgeCount()];
+    int count = 0;
+    for (int cell = 0; cell < this.cellCount(); cell = cell + 1) {
+      if (this.hasNeighbor(cell, RIGHT)) {
+        edges[count] = this.edgeId(cell, RIGHT);
+        count = count + 1;
       }
-      this.time = 0;
-      this.gameMode = "d";
-      this.curVer = this.vertices.get(0);
-      this.vertices.get(this.vertices.size() - 1).color = Color.magenta;
-      this.vertices.get(this.vertices.size() - 1).traced = false;
-    }
-    // changes the gamemode to bfs
-    if (k.equals("b") && !this.gameMode.equals("b")) {
-      for (int i = 1; i < this.vertices.size() - 1; i++) {
-        this.vertices.get(i).color = Color.gray;
-        this.vertices.get(i).traced = false;
+      if (this.hasNeighbor(cell, BOTTOM)) {
+        edges[count] = this.edgeId(cell, BOTTOM);
+        count = count + 1;
       }
-      this.time = 0;
-      this.gameMode = "b";
-      this.curVer = this.vertices.get(0);
-      this.vertices.get(this.vertices.size() - 1).color = Color.magenta;
-      this.vertices.get(this.vertices.size() - 1).traced = false;
     }
+    return edges;
   }
 
-  // determines if the supplied vertexes have the same representatives
-  public boolean sameReps(Vertex from, Vertex to) {
-    return this.find(this.representatives, from).equals(this.find(this.representatives, to));
+  // EFFECT: opens a passage between the two adjacent cells, on both sides
+  void connect(int from, int to) {
+    int side = this.sideTowards(from, to);
+    this.passages[from] = (byte) (this.passages[from] | side);
+    this.passages[to] = (byte) (this.passages[to] | this.opposite(side));
+    this.markDirty(from);
+    this.markDirty(to);
   }
 
-  // finds the representative for the supplied vertex
-  public Vertex find(HashMap<Vertex, Vertex> representatives, Vertex v) {
-    if (v.equals(representatives.get(v))) {
-      return v;
-    }
-    else {
-      return this.find(representatives, representatives.get(v));
-    }
+  // EFFECT: sets the colour of the supplied cell to the given Palette colour
+  void paint(int cell, byte colour) {
+    this.colors[cell] = colour;
+    this.markDirty(cell);
   }
 
-  // unions the from Vertex's key to the To Vertex's value
-  public void union(HashMap<Vertex, Vertex> reps, Vertex from, Vertex to) {
-    reps.put(this.find(reps, from), this.find(reps, to));
+  // modifies the cell to be blue, and traced
+  void modifyCell(int cell) {
+    this.paint(cell, Palette.CURRENT);
+    this.traced[cell] = true;
   }
 
-  // the bfs method
-  ArrayList<Vertex> bfs(Vertex from, Vertex to) {
-    return searchHelp(from, to, new Queue<Vertex>());
+  // EFFECT: records that the supplied cell needs repainting, if anything is
+  // rendering this grid
+  void markDirty(int cell) {
+    if (this.dirty != null) {
+      this.dirty.mark(cell);
+    }
   }
+}
 
-  // the dfs method
-  ArrayList<Vertex> dfs(Vertex from, Vertex to) {
-    return searchHelp(from, to, new Stack<Vertex>());
-  }
+// the set of cells that changed since they were last drawn, kept both as a
+// bitset for constant-time membership and as a list for cheap iteration. The
+// list holds at most LIMIT cells: a frame with more changes than that redraws
+// the whole view instead, which is no more work, so the set costs a bit a cell
+class DirtyCells {
+  static final int LIMIT = 1 << 16;
 
-  // the searchHelp method for bfs and dfs
-  ArrayList<Vertex> searchHelp(Vertex from, Vertex to, ICollection<Vertex> worklist) {
-    ArrayList<Vertex> alreadySeen = new ArrayList<Vertex>();
+  BitSet marked;
+  int[] cells;
+  int count;
+  boolean all;
 
-    // Initialize the worklist with the from vertex
-    worklist.add(from);
-    // As long as the worklist isn't empty...
-    while (!worklist.isEmpty()) {
-      Vertex next = worklist.remove();
-      if (next.equals(to)) {
-        return alreadySeen; // Success!
-      }
-      else if (alreadySeen.contains(next)) {
-        // do nothing: we've already seen this one
+  // creates an empty set for a grid with the given number of cells
+  DirtyCells(int cellCount) {
+    this.marked = new BitSet(cellCount);
+    this.cells = new int[Math.min(cellCount, LIMIT)];
+    this.count = 0;
+    this.all = false;
+  }
+
+  // EFFECT: adds the supplied cell to the set, unless it is already there, or
+  // marks every cell once the list is full
+  void mark(int cell) {
+    if (!this.all && !this.marked.get(cell)) {
+      if (this.count == this.cells.length) {
+        this.markAll();
       }
       else {
-        // add all the neighbors of next to the worklist for further processing
-        if (this.edgesInTree.contains(next.left) && next.left != null) {
-          worklist.add(next.left.from);
-        }
-        if (this.edgesInTree.contains(next.right) && next.right != null) {
-          worklist.add(next.right.to);
-        }
-        if (this.edgesInTree.contains(next.top) && next.top != null) {
-          worklist.add(next.top.from);
-        }
-        if (this.edgesInTree.contains(next.bottom) && next.bottom != null) {
-          worklist.add(next.bottom.to);
-        }
-        // add next to alreadySeen, since we're done with it
-        alreadySeen.add(next);
+        this.marked.set(cell);
+        this.cells[this.count] = cell;
+        this.count = this.count + 1;
       }
     }
-    // We haven't found the to vertex, and there are no more to try
-    return alreadySeen;
+  }
+
+  // EFFECT: marks every cell at once, e.g. for the first frame
+  void markAll() {
+    this.all = true;
+  }
+
+  // EFFECT: empties the set
+  void clear() {
+    for (int i = 0; i < this.count; i++) {
+      this.marked.clear(this.cells[i]);
+    }
+    this.count = 0;
+    this.all = false;
   }
 }
 
-// ArrayUtils Class
-class ArrayUtils {
-  // EFFECT: Sorts the given ArrayList according to the given comparator
-  <T> void quicksort(ArrayList<T> arr, Comparator<T> comp) {
-    quicksortHelp(arr, comp, 0, arr.size());
+// the colours cells are painted. A MazeGrid stores each cell's as one of these
+// byte indices, and ARGB holds the opaque pixel value of each, so painting a
+// cell never has to create a Color
+class Palette {
+  static final byte UNVISITED = 0;
+  static final byte START = 1;
+  static final byte GOAL = 2;
+  static final byte CURRENT = 3;
+  static final byte VISITED = 4;
+  static final byte HINT = 5;
+
+  static final int[] ARGB = new int[] {Color.gray.getRGB(), Color.green.getRGB(),
+      Color.magenta.getRGB(), Color.blue.getRGB(), new Color(137, 207, 240).getRGB(),
+      Color.yellow.getRGB()};
+}
+
+// the ways the game can be played: by hand with the arrow keys, or by watching
+// one of the searches, each picked with the key it is named by
+enum GameMode {
+  MANUAL("m"), BFS("b"), DFS("d"), ASTAR("a");
+
+  final String key;
+
+  // a mode picked with the given key
+  GameMode(String key) {
+    this.key = key;
   }
+}
 
-  // EFFECT: sorts the source array according to comp, in the range of indices
-  // [loIdx, hiIdx)
-  <T> void quicksortHelp(ArrayList<T> source, Comparator<T> comp, int loIdx, int hiIdx) {
-    // Step 0: check for completion
-    if (loIdx >= hiIdx) {
-      return; // There are no items to sort
+// comparator class for an Edge
+class EdgeComparator implements Comparator<Edge> {
+
+  // compares two edges by weight
+  public int compare(Edge o1, Edge o2) {
+    return o1.compareTo(o2);
+  }
+
+}
+
+// plays back a search's sequence of cells one step at a time, so the search only
+// has to run once per game mode
+class SolverPlayback {
+  int[] cells;
+  int cursor;
+
+  // constructor taking the cells in the order they will be played
+  SolverPlayback(int[] cells) {
+    this.cells = cells;
+    this.cursor = 0;
+  }
+
+  // determines if there are cells left to play
+  boolean hasNext() {
+    return this.cursor < this.cells.length;
+  }
+
+  // returns the next cell to play
+  // EFFECT: advances the cursor past it
+  int next() {
+    int cell = this.cells[this.cursor];
+    this.cursor = this.cursor + 1;
+    return cell;
+  }
+}
+
+// class representing an Edge between two adjacent cells of a MazeGrid
+class Edge implements Comparable<Edge> {
+  int from;
+  int to;
+  int weight;
+
+  // constructor taking in all fields
+  Edge(int from, int to, int weight) {
+    this.from = from;
+    this.to = to;
+    this.weight = weight;
+  }
+
+  // the compareTo method comparing two Edges by weight
+  public int compareTo(Edge o) {
+    return this.weight - o.weight;
+  }
+}
+
+// a disjoint-set forest over the cell ids 0..size-1, used to find which cells
+// are already connected while the maze is being generated
+class DisjointSet {
+  int[] parent;
+  int[] rank;
+
+  // creates a forest where every cell is its own representative
+  DisjointSet(int size) {
+    this.parent = new int[size];
+    this.rank = new int[size];
+    for (int i = 0; i < size; i++) {
+      this.parent[i] = i;
     }
-    // Step 1: select pivot
-    T pivot = source.get(loIdx);
-    // Step 2: partition items to lower or upper portions of the temp list
-    int pivotIdx = partition(source, comp, loIdx, hiIdx, pivot);
-    // Step 3: sort both halves of the list
-    quicksortHelp(source, comp, loIdx, pivotIdx);
-    quicksortHelp(source, comp, pivotIdx + 1, hiIdx);
   }
 
-  // Returns the index where the pivot element ultimately ends up in the sorted
-  // source
-  // EFFECT: Modifies the source list in the range [loIdx, hiIdx) such that
-  // all values to the left of the pivot are less than (or equal to) the pivot
-  // and all values to the right of the pivot are greater than it
-  <T> int partition(ArrayList<T> source, Comparator<T> comp, int loIdx, int hiIdx, T pivot) {
-    int curLo = loIdx;
-    int curHi = hiIdx - 1;
-    while (curLo < curHi) {
-      // Advance curLo until we find a too-big value (or overshoot the end of the
-      // list)
-      while (curLo < hiIdx && comp.compare(source.get(curLo), pivot) <= 0) {
-        curLo = curLo + 1;
-      }
-      // Advance curHi until we find a too-small value (or undershoot the start of the
-      // list)
-      while (curHi >= loIdx && comp.compare(source.get(curHi), pivot) > 0) {
-        curHi = curHi - 1;
-      }
-      if (curLo < curHi) {
-        swap(source, curLo, curHi);
-      }
+  // finds the representative of the supplied cell
+  // EFFECT: points every cell on the way directly at the representative
+  int find(int cell) {
+    int root = cell;
+    while (this.parent[root] != root) {
+      root = this.parent[root];
     }
-    swap(source, loIdx, curHi); // place the pivot in the remaining spot
-    return curHi;
+    while (this.parent[cell] != root) {
+      int next = this.parent[cell];
+      this.parent[cell] = root;
+      cell = next;
+    }
+    return root;
   }
 
-  // EFFECT: swaps the two supplied indexes
-  <T> void swap(ArrayList<T> source, int loIdx, int curHi) {
+  // finds the representative of the supplied cell without compressing the path,
+  // so several threads can ask at once while nothing is being unioned
+  int root(int cell) {
+    while (this.parent[cell] != cell) {
+      cell = this.parent[cell];
+    }
+    return cell;
+  }
+
+  // determines if the two cells have the same representative
+  boolean sameSet(int a, int b) {
+    return this.find(a) == this.find(b);
+  }
+
+  // unions the sets of the two cells, hanging the shallower tree under the
+  // deeper one (the from set goes under the to set when they are equally deep),
+  // and returns whether they were separate before
+  boolean union(int from, int to) {
+    int fromRoot = this.find(from);
+    int toRoot = this.find(to);
+    if (fromRoot == toRoot) {
+      return false;
+    }
+    if (this.rank[fromRoot] > this.rank[toRoot]) {
+      this.parent[toRoot] = fromRoot;
+    }
+    else {
+      this.parent[fromRoot] = toRoot;
+      if (this.rank[fromRoot] == this.rank[toRoot]) {
+        this.rank[toRoot] = this.rank[toRoot] + 1;
+      }
+    }
+    return true;
+  }
+}
+
+// a maze generation algorithm that carves a MazeGrid into a perfect maze (a
+// single spanning tree) a step at a time, so it can be animated or run to the end
+interface MazeGenerator {
+  // EFFECT: starts carving a new maze into the given grid, drawing every random
+  // choice from rand
+  void begin(MazeGrid grid, SplittableRandom rand);
+
+  // determines if the maze is finished
+  boolean isDone();
+
+  // takes one step of the algorithm, and returns whether it opened a passage
+  boolean step();
+
+  // tries up to count steps, stopping early once budgetNanos have passed, and
+  // returns how many were taken
+  int stepFor(int count, long budgetNanos);
+
+  // EFFECT: carves the rest of the maze
+  void finish();
+
+  // about how many steps a whole maze takes, for sizing animation batches
+  int estimatedSteps();
+
+  // the name of this algorithm
+  String name();
+}
+
+// the bookkeeping every MazeGenerator shares: the grid being carved, how many
+// passages are open, and running steps in batches
+abstract class AMazeGenerator implements MazeGenerator {
+  MazeGrid grid;
+  int carved;
+
+  // EFFECT: starts counting passages for the given grid
+  public void begin(MazeGrid grid, SplittableRandom rand) {
+    this.grid = grid;
+    this.carved = 0;
+  }
+
+  // determines if every cell is connected
+  public boolean isDone() {
+    return this.carved >= this.grid.cellCount() - 1;
+  }
+
+  // tries up to count steps, stopping early once budgetNanos have passed, and
+  // returns how many were taken
+  public int stepFor(int count, long budgetNanos) {
+    long deadline = System.nanoTime() + budgetNanos;
+    int taken = 0;
+    while (taken < count && !this.isDone()) {
+      this.step();
+      taken = taken + 1;
+      // reading the clock costs more than a step, so only check it now and then
+      if (taken % 64 == 0 && System.nanoTime() - deadline > 0) {
+        return taken;
+      }
+    }
+    return taken;
+  }
+
+  // EFFECT: carves the rest of the maze
+  public void finish() {
+    while (!this.isDone()) {
+      this.step();
+    }
+  }
+
+  // about how many steps a whole maze takes: one per passage by default
+  public int estimatedSteps() {
+    return this.grid.cellCount() - 1;
+  }
+
+  // EFFECT: opens the passage between the two cells, and counts it
+  void carve(int from, int to) {
+    this.grid.connect(from, to);
+    this.carved = this.carved + 1;
+  }
+}
+
+// looks up the MazeGenerators by name
+class MazeGenerators {
+  // a new, unstarted generator for the named algorithm
+  MazeGenerator named(String name) {
+    if (name.equals("kruskal")) {
+      return new KruskalGenerator();
+    }
+    else if (name.equals("backtracker")) {
+      return new BacktrackerGenerator();
+    }
+    else if (name.equals("prim")) {
+      return new PrimGenerator();
+    }
+    else if (name.equals("wilson")) {
+      return new WilsonGenerator();
+    }
+    else if (name.equals("eller")) {
+      return new EllerGenerator();
+    }
+    else {
+      throw new IllegalArgumentException("unknown maze generator: " + name);
+    }
+  }
+}
+
+// randomized Kruskal's algorithm on a MazeGrid: visits every edge in a random
+// order, opening it into a passage when its cells aren't connected yet
+class KruskalGenerator extends AMazeGenerator {
+  DisjointSet sets;
+  int[] order;
+  int next;
+
+  // an unstarted generator
+  KruskalGenerator() {
+  }
+
+  // prepares to carve the supplied grid, with the edge order drawn from rand
+  KruskalGenerator(MazeGrid grid, SplittableRandom rand) {
+    this.begin(grid, rand);
+  }
+
+  // EFFECT: prepares to carve the supplied grid, with the edge order drawn from
+  // rand
+  public void begin(MazeGrid grid, SplittableRandom rand) {
+    super.begin(grid, rand);
+    this.sets = new DisjointSet(grid.cellCount());
+    // the order holds every edge, sorted by a random permutation of weights.
+    // Because the weights are exactly 0..n-1, each edge can be placed straight
+    // at the index of its weight instead of sorting
+    this.order = new ArrayUtils().orderByPermutation(grid.edgeIds(),
+        this.weights(grid.edgeCount(), rand));
+    this.next = 0;
+  }
+
+  // the weights 0..count-1 in a random order
+  int[] weights(int count, SplittableRandom rand) {
+    int[] weights = new int[count];
+    for (int i = 0; i < count; i++) {
+      weights[i] = i;
+    }
+    new ArrayUtils().shuffle(weights, rand);
+    return weights;
+  }
+
+  // determines if every cell is connected, or there are no edges left to try
+  public boolean isDone() {
+    return super.isDone() || this.next == this.order.length;
+  }
+
+  // tries the next edge, and returns whether it was opened
+  // EFFECT: opens the edge if its cells weren't connected yet
+  public boolean step() {
+    int edge = this.order[this.next];
+    this.next = this.next + 1;
+    int from = this.grid.edgeFrom(edge);
+    int to = this.grid.edgeTo(edge);
+    if (this.sets.union(from, to)) {
+      this.carve(from, to);
+      return true;
+    }
+    return false;
+  }
+
+  // every edge is a step
+  public int estimatedSteps() {
+    return this.order.length;
+  }
+
+  // the name of this algorithm
+  public String name() {
+    return "kruskal";
+  }
+}
+
+// the recursive backtracker (a randomized depth-first search), run on an explicit
+// stack so it can't overflow the call stack on big mazes
+class BacktrackerGenerator extends AMazeGenerator {
+  SplittableRandom rand;
+  boolean[] visited;
+  int[] stack;
+  int size;
+  int[] choices;
+
+  // EFFECT: prepares to carve the supplied grid, starting from a random cell
+  public void begin(MazeGrid grid, SplittableRandom rand) {
+    super.begin(grid, rand);
+    this.rand = rand;
+    this.visited = new boolean[grid.cellCount()];
+    this.stack = new int[grid.cellCount()];
+    this.choices = new int[4];
+    int start = rand.nextInt(grid.cellCount());
+    this.visited[start] = true;
+    this.stack[0] = start;
+    this.size = 1;
+  }
+
+  // backs up the stack until its top cell has an unvisited neighbor, then opens a
+  // passage to a random one of them and pushes it, and returns whether it did
+  public boolean step() {
+    while (this.size > 0) {
+      int cell = this.stack[this.size - 1];
+      int count = 0;
+      for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+        if (this.grid.hasNeighbor(cell, side) && !this.visited[this.grid.neighbor(cell, side)]) {
+          this.choices[count] = side;
+          count = count + 1;
+        }
+      }
+      if (count == 0) {
+        this.size = this.size - 1;
+      }
+      else {
+        int next = this.grid.neighbor(cell, this.choices[this.rand.nextInt(count)]);
+        this.carve(cell, next);
+        this.visited[next] = true;
+        this.stack[this.size] = next;
+        this.size = this.size + 1;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the name of this algorithm
+  public String name() {
+    return "backtracker";
+  }
+}
+
+// randomized Prim's algorithm: grows the maze from one cell, always opening the
+// frontier edge with the smallest random weight, kept in a primitive binary heap
+class PrimGenerator extends AMazeGenerator {
+  SplittableRandom rand;
+  boolean[] visited;
+  IntMinHeap frontier;
+
+  // EFFECT: prepares to carve the supplied grid, starting from a random cell
+  public void begin(MazeGrid grid, SplittableRandom rand) {
+    super.begin(grid, rand);
+    this.rand = rand;
+    this.visited = new boolean[grid.cellCount()];
+    this.frontier = new IntMinHeap(16);
+    this.visit(rand.nextInt(grid.cellCount()));
+  }
+
+  // EFFECT: adds the cell to the maze, and its edges to unvisited cells to the
+  // frontier
+  void visit(int cell) {
+    this.visited[cell] = true;
+    for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+      if (this.grid.hasNeighbor(cell, side) && !this.visited[this.grid.neighbor(cell, side)]) {
+        this.frontier.push(this.rand.nextInt(Integer.MAX_VALUE),
+            this.grid.edgeBetween(cell, side));
+      }
+    }
+  }
+
+  // pops frontier edges until one leads to an unvisited cell, opens it, and
+  // returns whether it found one
+  public boolean step() {
+    while (this.frontier.size > 0) {
+      int edge = this.frontier.pop();
+      int from = this.grid.edgeFrom(edge);
+      int to = this.grid.edgeTo(edge);
+      if (!this.visited[from] || !this.visited[to]) {
+        this.carve(from, to);
+        if (this.visited[from]) {
+          this.visit(to);
+        }
+        else {
+          this.visit(from);
+        }
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the name of this algorithm
+  public String name() {
+    return "prim";
+  }
+}
+
+// Wilson's algorithm: from each cell outside the maze, takes a random walk until
+// it hits the maze, then carves the walk with its loops erased. The mazes it makes
+// are picked uniformly from every possible maze
+class WilsonGenerator extends AMazeGenerator {
+  SplittableRandom rand;
+  boolean[] inMaze;
+  byte[] exits;
+  int nextStart;
+  int walkStart;
+  int current;
+  boolean carving;
+  int[] choices;
+
+  // EFFECT: prepares to carve the supplied grid, with one random cell in the maze
+  public void begin(MazeGrid grid, SplittableRandom rand) {
+    super.begin(grid, rand);
+    this.rand = rand;
+    this.inMaze = new boolean[grid.cellCount()];
+    this.exits = new byte[grid.cellCount()];
+    this.inMaze[rand.nextInt(grid.cellCount())] = true;
+    this.nextStart = 0;
+    this.walkStart = -1;
+    this.current = -1;
+    this.carving = false;
+    this.choices = new int[4];
+  }
+
+  // takes one step of the walk, or carves one passage of a finished walk, and
+  // returns whether it opened a passage
+  public boolean step() {
+    if (this.carving) {
+      // follows the last exit taken from each cell, which skips every loop
+      int next = this.grid.neighbor(this.current, this.exits[this.current]);
+      this.carve(this.current, next);
+      this.inMaze[this.current] = true;
+      this.current = next;
+      this.carving = !this.inMaze[next];
+      return true;
+    }
+    if (this.walkStart == -1 || this.inMaze[this.walkStart]) {
+      // starts a new walk from the next cell that isn't in the maze yet
+      while (this.inMaze[this.nextStart]) {
+        this.nextStart = this.nextStart + 1;
+      }
+      this.walkStart = this.nextStart;
+      this.current = this.walkStart;
+    }
+    int count = 0;
+    for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+      if (this.grid.hasNeighbor(this.current, side)) {
+        this.choices[count] = side;
+        count = count + 1;
+      }
+    }
+    int side = this.choices[this.rand.nextInt(count)];
+    this.exits[this.current] = (byte) side;
+    this.current = this.grid.neighbor(this.current, side);
+    if (this.inMaze[this.current]) {
+      // the walk hit the maze: carve it from the start
+      this.current = this.walkStart;
+      this.carving = true;
+    }
+    return false;
+  }
+
+  // about how many steps a whole maze takes. Every walk move is a step too, and
+  // the walks to a maze of n cells take about n ln n moves in all, most of them
+  // early on, while the maze is small and hard to hit
+  public int estimatedSteps() {
+    int cells = this.grid.cellCount();
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(cells - 1, cells * Math.log(cells)));
+  }
+
+  // the name of this algorithm
+  public String name() {
+    return "wilson";
+  }
+}
+
+// Eller's algorithm: carves a maze one row at a time, keeping only the set
+// labels of the current row, so its memory grows with the width of the maze
+// and not its height. Each finished row is handed to a MazeRowSink (a grid, a
+// file, ...) and then forgotten, so mazes millions of rows tall stream out in
+// constant memory. Used as a MazeGenerator, a step is one whole row.
+// run with: java EllerGenerator <xCells> <yCells> [seed] [file]
+class EllerGenerator extends AMazeGenerator {
+  int width;
+  int height;
+  int y;
+  SplittableRandom rand;
+  MazeRowSink sink;
+  // the set label of each cell of the current row, or -1 for a cell not
+  // reached from above; labels are renumbered 0..labelCount - 1 on every row
+  int[] labels;
+  int labelCount;
+  // union-find over the labels of the current row
+  int[] parent;
+  // per label, how many of its cells in this row still have to pick a way down
+  int[] remaining;
+  boolean[] wentDown;
+  int[] relabel;
+  // the passage bits of the current row, and of the row below as far as it
+  // is known (which of its cells are open at the top)
+  byte[] row;
+  byte[] below;
+  // random bits drawn 64 at a time, since the algorithm flips a coin per cell
+  long coins;
+  int coinsLeft;
+
+  // an unstarted generator
+  EllerGenerator() {
+  }
+
+  // prepares to stream a maze of the given size into the sink, drawing every
+  // random choice from rand
+  EllerGenerator(int width, int height, SplittableRandom rand, MazeRowSink sink) {
+    this.start(width, height, rand, sink);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: java EllerGenerator <xCells> <yCells> [seed] [file]");
+      return;
+    }
+    int xCells = Integer.parseInt(args[0]);
+    int yCells = Integer.parseInt(args[1]);
+    long seed = 0;
+    if (args.length > 2) {
+      seed = Long.parseLong(args[2]);
+    }
+    long start = System.nanoTime();
+    long written;
+    if (args.length > 3) {
+      MazeFile file = new MazeFile(Paths.get(args[3]));
+      file.create(xCells, yCells, seed, "eller");
+      new EllerGenerator(xCells, yCells, new SplittableRandom(seed), file).finish();
+      file.close();
+      written = file.written;
+    }
+    else {
+      PackedRowSink sink = new PackedRowSink(OutputStream.nullOutputStream(), xCells);
+      new EllerGenerator(xCells, yCells, new SplittableRandom(seed), sink).finish();
+      written = sink.written;
+    }
+    long nanos = System.nanoTime() - start;
+    Runtime runtime = Runtime.getRuntime();
+    System.out.printf("%dx%d: %.1f ms, %.0f rows/s, %.1f MB/s, %d KB heap in use%n", xCells,
+        yCells, nanos / 1e6, yCells / (nanos / 1e9), written / 1e6 / (nanos / 1e9),
+        (runtime.totalMemory() - runtime.freeMemory()) / 1024);
+  }
+
+  // EFFECT: prepares to carve the supplied grid, with every choice drawn from rand
+  public void begin(MazeGrid grid, SplittableRandom rand) {
+    super.begin(grid, rand);
+    this.start(grid.width, grid.height, rand, new GridRowSink(grid));
+  }
+
+  // EFFECT: prepares to stream a maze of the given size into the sink
+  void start(int width, int height, SplittableRandom rand, MazeRowSink sink) {
+    this.width = width;
+    this.height = height;
+    this.y = 0;
+    this.carved = 0;
+    this.rand = rand;
+    this.sink = sink;
+    this.labels = new int[width];
+    Arrays.fill(this.labels, -1);
+    this.labelCount = 0;
+    this.parent = new int[width];
+    this.remaining = new int[width];
+    this.wentDown = new boolean[width];
+    this.relabel = new int[width];
+    this.row = new byte[width];
+    this.below = new byte[width];
+    this.coinsLeft = 0;
+  }
+
+  // a fair coin flip from the next of the buffered random bits
+  boolean coin() {
+    if (this.coinsLeft == 0) {
+      this.coins = this.rand.nextLong();
+      this.coinsLeft = 64;
+    }
+    this.coinsLeft = this.coinsLeft - 1;
+    boolean heads = (this.coins & 1) != 0;
+    this.coins = this.coins >>> 1;
+    return heads;
+  }
+
+  // determines if every row has been streamed out
+  public boolean isDone() {
+    return this.y >= this.height;
+  }
+
+  // about how many steps a whole maze takes: one per row
+  public int estimatedSteps() {
+    return this.height;
+  }
+
+  // carves the next row, hands it to the sink, and returns whether it opened
+  // any passage
+  public boolean step() {
+    int before = this.carved;
+    boolean last = this.y == this.height - 1;
+    // cells not reached from above start a set of their own
+    for (int x = 0; x < this.width; x++) {
+      if (this.labels[x] == -1) {
+        this.labels[x] = this.labelCount;
+        this.labelCount = this.labelCount + 1;
+      }
+    }
+    for (int label = 0; label < this.labelCount; label++) {
+      this.parent[label] = label;
+    }
+    // joins neighbours of different sets at random, and all of them on the last row
+    for (int x = 0; x + 1 < this.width; x++) {
+      int left = this.findLabel(this.labels[x]);
+      int right = this.findLabel(this.labels[x + 1]);
+      if (left != right && (last || this.coin())) {
+        this.parent[left] = right;
+        this.row[x] = (byte) (this.row[x] | MazeGrid.RIGHT);
+        this.row[x + 1] = (byte) (this.row[x + 1] | MazeGrid.LEFT);
+        this.carved = this.carved + 1;
+      }
+    }
+    for (int x = 0; x < this.width; x++) {
+      this.labels[x] = this.findLabel(this.labels[x]);
+    }
+    if (!last) {
+      this.carveDown();
+    }
+    this.sink.acceptRow(this.y, this.row);
+    // the row below becomes the current row, and this row's array is reused
+    byte[] done = this.row;
+    this.row = this.below;
+    this.below = done;
+    this.y = this.y + 1;
+    return this.carved > before;
+  }
+
+  // EFFECT: opens passages down from the current row, at random but at least
+  // once for every set, and renumbers the labels that carry on to the next row
+  void carveDown() {
+    for (int label = 0; label < this.labelCount; label++) {
+      this.remaining[label] = 0;
+      this.wentDown[label] = false;
+      this.relabel[label] = -1;
+    }
+    for (int x = 0; x < this.width; x++) {
+      this.remaining[this.labels[x]] = this.remaining[this.labels[x]] + 1;
+    }
+    for (int x = 0; x < this.width; x++) {
+      int label = this.labels[x];
+      this.remaining[label] = this.remaining[label] - 1;
+      // the last cell of a set that hasn't gone down yet has to
+      if (this.coin() || (this.remaining[label] == 0 && !this.wentDown[label])) {
+        this.wentDown[label] = true;
+        this.row[x] = (byte) (this.row[x] | MazeGrid.BOTTOM);
+        this.below[x] = MazeGrid.TOP;
+        this.carved = this.carved + 1;
+      }
+      else {
+        this.below[x] = 0;
+        this.labels[x] = -1;
+      }
+    }
+    int count = 0;
+    for (int x = 0; x < this.width; x++) {
+      int label = this.labels[x];
+      if (label != -1) {
+        if (this.relabel[label] == -1) {
+          this.relabel[label] = count;
+          count = count + 1;
+        }
+        this.labels[x] = this.relabel[label];
+      }
+    }
+    this.labelCount = count;
+  }
+
+  // the representative of the given label in this row
+  // EFFECT: points labels on the way closer to it
+  int findLabel(int label) {
+    while (this.parent[label] != label) {
+      this.parent[label] = this.parent[this.parent[label]];
+      label = this.parent[label];
+    }
+    return label;
+  }
+
+  // the name of this algorithm
+  public String name() {
+    return "eller";
+  }
+}
+
+// a destination for a maze that is streamed out one row at a time. The row
+// array is reused for the rows that follow, so a sink must copy what it keeps
+interface MazeRowSink {
+  // EFFECT: takes in row y of the maze, the passage bits of each of its cells
+  void acceptRow(int y, byte[] row);
+}
+
+// a MazeRowSink that writes the rows into a MazeGrid, for showing a streamed
+// maze in the game
+class GridRowSink implements MazeRowSink {
+  MazeGrid grid;
+
+  // a sink that fills the supplied grid
+  GridRowSink(MazeGrid grid) {
+    this.grid = grid;
+  }
+
+  // EFFECT: copies the row into the grid, and marks its cells to be redrawn
+  public void acceptRow(int y, byte[] row) {
+    int first = y * this.grid.width;
+    System.arraycopy(row, 0, this.grid.passages, first, this.grid.width);
+    for (int x = 0; x < this.grid.width; x++) {
+      this.grid.markDirty(first + x);
+    }
+  }
+}
+
+// a MazeRowSink that packs every cell into 2 bits, whether it is open to the
+// right (the low bit) and to the bottom (the high bit), four cells to a byte,
+// and writes each row to a stream. Left and top passages follow from the cells
+// before, so nothing is lost
+class PackedRowSink implements MazeRowSink {
+  OutputStream out;
+  byte[] packed;
+  long written;
+
+  // a sink writing rows of the given width to out
+  PackedRowSink(OutputStream out, int width) {
+    this.out = out;
+    this.packed = new byte[(width + 3) / 4];
+    this.written = 0;
+  }
+
+  // EFFECT: packs the row and writes it out
+  public void acceptRow(int y, byte[] row) {
+    Arrays.fill(this.packed, (byte) 0);
+    for (int x = 0; x < row.length; x++) {
+      int bits = 0;
+      if ((row[x] & MazeGrid.RIGHT) != 0) {
+        bits = 1;
+      }
+      if ((row[x] & MazeGrid.BOTTOM) != 0) {
+        bits = bits | 2;
+      }
+      this.packed[x / 4] = (byte) (this.packed[x / 4] | (bits << ((x % 4) * 2)));
+    }
+    try {
+      this.out.write(this.packed);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.written = this.written + this.packed.length;
+  }
+}
+
+// a maze kept in a compact binary file: a header with the magic number "MAZE",
+// the format version, the width, height and seed of the maze and the name of
+// the algorithm that carved it, and then every row packed 2 bits to a cell
+// (open to the right, open to the bottom), four cells to a byte, as
+// PackedRowSink does. Files are read and written through a FileChannel in large
+// chunks. A MazeFile being created is also a MazeRowSink, so a streamed maze
+// can go straight to disk.
+// run with: java MazeFile <xCells> <yCells> <file> [algorithm]
+class MazeFile implements MazeRowSink {
+  static final int MAGIC = 0x4D415A45;
+  static final short VERSION = 1;
+  // the bytes of the header before the algorithm name
+  static final int HEADER_BYTES = 23;
+  // about how many bytes are read or written at once
+  static final int CHUNK = 1 << 16;
+  Path path;
+  int width;
+  int height;
+  long seed;
+  String algorithm;
+  FileChannel channel;
+  ByteBuffer buffer;
+  long written;
+
+  // a maze file at the given path, which may not exist yet
+  MazeFile(Path path) {
+    this.path = path;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println("usage: java MazeFile <xCells> <yCells> <file> [algorithm]");
+      return;
+    }
+    MazeGrid grid = new MazeGrid(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    MazeGenerator generator = new MazeGenerators().named("kruskal");
+    if (args.length > 3) {
+      generator = new MazeGenerators().named(args[3]);
+    }
+    long start = System.nanoTime();
+    generator.begin(grid, new SplittableRandom(1));
+    generator.finish();
+    long generated = System.nanoTime() - start;
+    MazeFile file = new MazeFile(Paths.get(args[2]));
+    start = System.nanoTime();
+    file.save(grid, 1, generator.name());
+    long saved = System.nanoTime() - start;
+    start = System.nanoTime();
+    MazeGrid loaded = file.load();
+    long read = System.nanoTime() - start;
+    System.out.printf("%dx%d %s: generate %.1f ms, save %.1f ms, load %.1f ms, %d bytes%s%n",
+        grid.width, grid.height, generator.name(), generated / 1e6, saved / 1e6, read / 1e6,
+        file.written, Arrays.equals(loaded.passages, grid.passages) ? "" : " MISMATCH");
+  }
+
+  // the bytes each packed row takes
+  int rowBytes() {
+    return (this.width + 3) / 4;
+  }
+
+  // EFFECT: writes the whole grid to the file, replacing anything already there
+  void save(MazeGrid grid, long seed, String algorithm) throws IOException {
+    this.create(grid.width, grid.height, seed, algorithm);
+    try {
+      for (int y = 0; y < this.height; y++) {
+        this.packRow(grid.passages, y * this.width);
+      }
+    }
+    finally {
+      this.close();
+    }
+  }
+
+  // EFFECT: creates the file, replacing any file already there, and writes the
+  // header for a maze of the given size, ready for its rows
+  void create(int width, int height, long seed, String algorithm) throws IOException {
+    this.describe(width, height, seed, algorithm);
+    this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocate(Math.max(CHUNK, this.rowBytes()));
+    this.writeHeader(this.buffer);
+    this.written = this.buffer.position();
+  }
+
+  // EFFECT: sets the size, seed and algorithm the header describes
+  void describe(int width, int height, long seed, String algorithm) {
+    if (algorithm.getBytes(StandardCharsets.UTF_8).length > 255) {
+      throw new IllegalArgumentException("algorithm name too long: " + algorithm);
+    }
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("bad maze size " + width + "x" + height);
+    }
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+    this.algorithm = algorithm;
+  }
+
+  // the bytes of the whole header, algorithm name included
+  int headerBytes() {
+    return HEADER_BYTES + this.algorithm.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  // EFFECT: puts the header into the buffer
+  void writeHeader(ByteBuffer into) {
+    byte[] name = this.algorithm.getBytes(StandardCharsets.UTF_8);
+    into.putInt(MAGIC).putShort(VERSION).putInt(this.width).putInt(this.height)
+        .putLong(this.seed).put((byte) name.length).put(name);
+  }
+
+  // EFFECT: reads the header from the start of the file, leaving the channel at
+  // the first row, and sets the width, height, seed and algorithm from it
+  void readHeader(FileChannel in) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    this.readFully(in, header);
+    if (header.getInt() != MAGIC) {
+      throw new IOException("not a maze file: " + this.path);
+    }
+    short version = header.getShort();
+    if (version != VERSION) {
+      throw new IOException("unsupported maze file version " + version + ": " + this.path);
+    }
+    this.width = header.getInt();
+    this.height = header.getInt();
+    if (this.width < 1 || this.height < 1) {
+      throw new IOException("bad maze size " + this.width + "x" + this.height + ": " + this.path);
+    }
+    this.seed = header.getLong();
+    ByteBuffer name = ByteBuffer.allocate(header.get() & 0xFF);
+    this.readFully(in, name);
+    this.algorithm = new String(name.array(), StandardCharsets.UTF_8);
+  }
+
+  // EFFECT: packs the next row of the maze being created into the file
+  public void acceptRow(int y, byte[] row) {
+    try {
+      this.packRow(row, 0);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // EFFECT: packs the width cells starting at first into the write buffer,
+  // flushing it to the file first if the row doesn't fit
+  void packRow(byte[] cells, int first) throws IOException {
+    if (this.buffer.remaining() < this.rowBytes()) {
+      this.flush();
+    }
+    for (int x = 0; x < this.width; x = x + 4) {
+      this.buffer.put(this.pack(cells, first, x));
+    }
+    this.written = this.written + this.rowBytes();
+  }
+
+  // the byte holding the four cells from x on of the row starting at first
+  byte pack(byte[] cells, int first, int x) {
+    int packed = 0;
+    for (int i = 0; i < 4 && x + i < this.width; i++) {
+      int cell = cells[first + x + i];
+      // RIGHT is 2 and BOTTOM is 8, so they shift down onto bits 0 and 1
+      int bits = ((cell & MazeGrid.RIGHT) >> 1) | ((cell & MazeGrid.BOTTOM) >> 2);
+      packed = packed | (bits << (i * 2));
+    }
+    return (byte) packed;
+  }
+
+  // EFFECT: writes out everything in the write buffer, and empties it
+  void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  // EFFECT: flushes the rows written so far and closes the file, even when the
+  // flush fails
+  void close() throws IOException {
+    try {
+      this.flush();
+    }
+    finally {
+      this.channel.close();
+      this.channel = null;
+    }
+  }
+
+  // reads the maze back into a new grid
+  // EFFECT: sets the width, height, seed and algorithm from the file's header
+  MazeGrid load() throws IOException {
+    try (FileChannel in = FileChannel.open(this.path, StandardOpenOption.READ)) {
+      this.readHeader(in);
+      MazeGrid grid = new MazeGrid(this.width, this.height);
+      int rowsPerChunk = Math.max(1, CHUNK / this.rowBytes());
+      ByteBuffer rows = ByteBuffer.allocate(rowsPerChunk * this.rowBytes());
+      for (int y = 0; y < this.height; y = y + rowsPerChunk) {
+        int count = Math.min(rowsPerChunk, this.height - y);
+        rows.clear();
+        rows.limit(count * this.rowBytes());
+        this.readFully(in, rows);
+        for (int i = 0; i < count; i++) {
+          this.unpackRow(grid, y + i, rows.array(), i * this.rowBytes());
+        }
+      }
+      return grid;
+    }
+  }
+
+  // EFFECT: fills the buffer from the file and flips it for reading, or throws
+  // if the file ends first
+  void readFully(FileChannel in, ByteBuffer into) throws IOException {
+    while (into.hasRemaining()) {
+      if (in.read(into) < 0) {
+        throw new EOFException("truncated maze file: " + this.path);
+      }
+    }
+    into.flip();
+  }
+
+  // EFFECT: opens the passages of row y of the grid from its packed bytes,
+  // starting at offset
+  void unpackRow(MazeGrid grid, int y, byte[] bytes, int offset) {
+    int first = y * this.width;
+    boolean lastRow = y == this.height - 1;
+    for (int x = 0; x < this.width; x++) {
+      int bits = (bytes[offset + (x / 4)] >> ((x % 4) * 2)) & 3;
+      int cell = first + x;
+      if ((bits & 1) != 0 && x + 1 < this.width) {
+        grid.passages[cell] = (byte) (grid.passages[cell] | MazeGrid.RIGHT);
+        grid.passages[cell + 1] = (byte) (grid.passages[cell + 1] | MazeGrid.LEFT);
+      }
+      if ((bits & 2) != 0 && !lastRow) {
+        grid.passages[cell] = (byte) (grid.passages[cell] | MazeGrid.BOTTOM);
+        grid.passages[cell + this.width] =
+            (byte) (grid.passages[cell + this.width] | MazeGrid.TOP);
+      }
+    }
+  }
+}
+
+// a maze stored in a MazeFile that is memory-mapped rather than read into the
+// heap: its packed wall bits are read straight out of the mapping, and the
+// operating system pages them in and out, so a maze can be far bigger than the
+// heap or even RAM. A single mapping is limited to 2GB, so the rows are split
+// over as many mappings as they need. A maze created this way is also a
+// MazeRowSink, for streaming a new maze right into the mapping.
+// run with: java MappedMaze <file> [x y png]
+class MappedMaze implements MazeWalls, MazeRowSink {
+  MazeFile file;
+  // the most bytes a single mapping covers
+  long mapBytes;
+  int rowBytes;
+  int rowsPerMap;
+  MappedByteBuffer[] maps;
+
+  // a mapped maze for the file at the given path
+  MappedMaze(Path path) {
+    this.file = new MazeFile(path);
+    this.mapBytes = 1L << 30;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: java MappedMaze <file> [x y png]");
+      return;
+    }
+    MappedMaze maze = new MappedMaze(Paths.get(args[0]));
+    maze.open();
+    long cells = (long) maze.columns() * maze.rows();
+    System.out.printf("%dx%d %s maze, %d cells in %d mappings%n", maze.columns(), maze.rows(),
+        maze.file.algorithm, cells, maze.maps.length);
+    long start = System.nanoTime();
+    long steps = new WallFollower(maze, 0).walkTo(cells - 1);
+    System.out.printf("wall follower: %d steps in %.1f ms%n", steps,
+        (System.nanoTime() - start) / 1e6);
+    if (args.length > 3) {
+      WindowRenderer window = new WindowRenderer(maze, 4, 200, 150);
+      window.render(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+      RasterRenderer raster = window.raster;
+      BufferedImage image = new BufferedImage(raster.width, raster.height,
+          BufferedImage.TYPE_INT_ARGB);
+      image.setRGB(0, 0, raster.width, raster.height, raster.pixels, 0, raster.width);
+      ImageIO.write(image, "png", new File(args[3]));
+    }
+  }
+
+  // the number of cells in each row
+  public int columns() {
+    return this.file.width;
+  }
+
+  // the number of rows of cells
+  public int rows() {
+    return this.file.height;
+  }
+
+  // EFFECT: maps the rows of the existing maze file, read only
+  void open() throws IOException {
+    try (FileChannel channel = FileChannel.open(this.file.path, StandardOpenOption.READ)) {
+      this.file.readHeader(channel);
+      this.mapRows(channel, FileChannel.MapMode.READ_ONLY, channel.position());
+    }
+  }
+
+  // EFFECT: creates the file for a maze of the given size, replacing any file
+  // already there, writes its header, and maps its rows for writing
+  void create(int width, int height, long seed, String algorithm) throws IOException {
+    this.file.describe(width, height, seed, algorithm);
+    try (FileChannel channel = FileChannel.open(this.file.path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(this.file.headerBytes());
+      this.file.writeHeader(header);
+      header.flip();
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      this.mapRows(channel, FileChannel.MapMode.READ_WRITE, channel.position());
+    }
+  }
+
+  // EFFECT: maps every row of the maze after the header, in as many mappings as
+  // they need
+  void mapRows(FileChannel channel, FileChannel.MapMode mode, long headerBytes)
+      throws IOException {
+    this.rowBytes = this.file.rowBytes();
+    this.rowsPerMap = (int) Math.min(this.file.height, Math.max(1, this.mapBytes / this.rowBytes));
+    this.maps = new MappedByteBuffer[(this.file.height + this.rowsPerMap - 1) / this.rowsPerMap];
+    for (int i = 0; i < this.maps.length; i++) {
+      int rows = Math.min(this.rowsPerMap, this.file.height - (i * this.rowsPerMap));
+      long first = headerBytes + ((long) i * this.rowsPerMap * this.rowBytes);
+      this.maps[i] = channel.map(mode, first, (long) rows * this.rowBytes);
+    }
+  }
+
+  // the two bits of the cell at the given coordinates: open to the right, and
+  // open to the bottom
+  int bitsAt(int x, int y) {
+    int offset = ((y % this.rowsPerMap) * this.rowBytes) + (x / 4);
+    return (this.maps[y / this.rowsPerMap].get(offset) >> ((x % 4) * 2)) & 3;
+  }
+
+  // determines if the given side of the supplied cell is an open passage
+  public boolean isPassage(long cell, int side) {
+    int x = (int) (cell % this.file.width);
+    int y = (int) (cell / this.file.width);
+    if (side == MazeGrid.RIGHT) {
+      return x + 1 < this.file.width && (this.bitsAt(x, y) & 1) != 0;
+    }
+    else if (side == MazeGrid.BOTTOM) {
+      return y + 1 < this.file.height && (this.bitsAt(x, y) & 2) != 0;
+    }
+    else if (side == MazeGrid.LEFT) {
+      return x > 0 && (this.bitsAt(x - 1, y) & 1) != 0;
+    }
+    else {
+      return y > 0 && (this.bitsAt(x, y - 1) & 2) != 0;
+    }
+  }
+
+  // EFFECT: packs row y of a streamed maze into the mapping
+  public void acceptRow(int y, byte[] row) {
+    MappedByteBuffer map = this.maps[y / this.rowsPerMap];
+    int offset = (y % this.rowsPerMap) * this.rowBytes;
+    for (int x = 0; x < this.file.width; x = x + 4) {
+      map.put(offset + (x / 4), this.file.pack(row, 0, x));
+    }
+  }
+
+  // EFFECT: writes every changed page of the mapping back to the file
+  void force() {
+    for (MappedByteBuffer map : this.maps) {
+      map.force();
+    }
+  }
+}
+
+// solves a perfect maze by keeping its right hand on the wall. It remembers
+// nothing but where it is and which way it faces, so it needs no memory for the
+// maze at all, which suits mazes too big for the heap; in exchange it may walk
+// down every dead end on its way, up to twice per passage.
+class WallFollower {
+  MazeWalls maze;
+  long cell;
+  // the side it faces, as an index into the sides in clockwise order
+  int facing;
+  long steps;
+
+  // a follower standing on the given cell of the maze, facing right
+  WallFollower(MazeWalls maze, long start) {
+    this.maze = maze;
+    this.cell = start;
+    this.facing = 1;
+    this.steps = 0;
+  }
+
+  // the side at the given index of the sides in clockwise order from the top
+  int clockwise(int index) {
+    if (index == 0) {
+      return MazeGrid.TOP;
+    }
+    else if (index == 1) {
+      return MazeGrid.RIGHT;
+    }
+    else if (index == 2) {
+      return MazeGrid.BOTTOM;
+    }
+    else {
+      return MazeGrid.LEFT;
+    }
+  }
+
+  // EFFECT: moves one cell along the right-hand wall: right if it can, else
+  // straight on, else left, else back the way it came
+  void step() {
+    for (int turn = 1; turn >= -2; turn--) {
+      int side = (this.facing + turn + 4) % 4;
+      if (this.maze.isPassage(this.cell, this.clockwise(side))) {
+        this.facing = side;
+        this.cell = this.neighbor(this.cell, this.clockwise(side));
+        this.steps = this.steps + 1;
+        return;
+      }
+    }
+  }
+
+  // the cell next to the supplied one on the given side
+  long neighbor(long cell, int side) {
+    if (side == MazeGrid.LEFT) {
+      return cell - 1;
+    }
+    else if (side == MazeGrid.RIGHT) {
+      return cell + 1;
+    }
+    else if (side == MazeGrid.TOP) {
+      return cell - this.maze.columns();
+    }
+    else {
+      return cell + this.maze.columns();
+    }
+  }
+
+  // walks until it reaches the goal, and returns how many steps that took, or
+  // -1 if it walked every passage both ways without finding it
+  long walkTo(long goal) {
+    long limit = 2 * (long) this.maze.columns() * this.maze.rows();
+    while (this.cell != goal) {
+      if (this.steps > limit) {
+        return -1;
+      }
+      long before = this.steps;
+      this.step();
+      // a cell with no passages at all is a dead end with no way out
+      if (this.steps == before) {
+        return -1;
+      }
+    }
+    return this.steps;
+  }
+}
+
+// paints a window of any MazeWalls into a RasterRenderer, reading the walls of
+// just the cells in view, so a maze on disk can be looked at without loading it
+class WindowRenderer {
+  static final int FLOOR = 0xFF808080;
+
+  MazeWalls maze;
+  int columns;
+  int rows;
+  RasterRenderer raster;
+
+  // a window the given number of cells wide and tall onto the maze
+  WindowRenderer(MazeWalls maze, int cellSize, int columns, int rows) {
+    this.maze = maze;
+    this.columns = columns;
+    this.rows = rows;
+    this.raster = new RasterRenderer(columns, rows, cellSize);
+  }
+
+  // EFFECT: paints the window whose top left cell is at the given coordinates,
+  // leaving whatever lies past the edge of the maze as solid wall
+  void render(int left, int top) {
+    for (int row = 0; row < this.rows; row++) {
+      for (int column = 0; column < this.columns; column++) {
+        int x = left + column;
+        int y = top + row;
+        if (x < 0 || y < 0 || x >= this.maze.columns() || y >= this.maze.rows()) {
+          this.raster.paintBlock(column, row, RasterRenderer.WALL, 0);
+        }
+        else {
+          this.raster.paintBlock(column, row, FLOOR, this.walls(x, y));
+        }
+      }
+    }
+  }
+
+  // the mask of the sides of the cell at the given coordinates that are walls
+  // between it and a neighbour
+  int walls(int x, int y) {
+    long cell = ((long) y * this.maze.columns()) + x;
+    int walls = 0;
+    if (x > 0 && !this.maze.isPassage(cell, MazeGrid.LEFT)) {
+      walls = walls | MazeGrid.LEFT;
+    }
+    if (x + 1 < this.maze.columns() && !this.maze.isPassage(cell, MazeGrid.RIGHT)) {
+      walls = walls | MazeGrid.RIGHT;
+    }
+    if (y > 0 && !this.maze.isPassage(cell, MazeGrid.TOP)) {
+      walls = walls | MazeGrid.TOP;
+    }
+    if (y + 1 < this.maze.rows() && !this.maze.isPassage(cell, MazeGrid.BOTTOM)) {
+      walls = walls | MazeGrid.BOTTOM;
+    }
+    return walls;
+  }
+}
+
+// a binary min-heap of int values ordered by int keys, kept in two parallel
+// arrays so pushing and popping never allocates once it has grown
+class IntMinHeap {
+  int[] keys;
+  int[] values;
+  int size;
+
+  // creates an empty heap with room for the given number of items
+  IntMinHeap(int capacity) {
+    this.keys = new int[Math.max(1, capacity)];
+    this.values = new int[Math.max(1, capacity)];
+    this.size = 0;
+  }
+
+  // EFFECT: adds the value with the given key, growing the arrays if needed
+  void push(int key, int value) {
+    if (this.size == this.keys.length) {
+      this.keys = Arrays.copyOf(this.keys, this.size * 2);
+      this.values = Arrays.copyOf(this.values, this.size * 2);
+    }
+    int i = this.size;
+    this.size = this.size + 1;
+    // moves parents with bigger keys down until the new item fits
+    while (i > 0 && this.keys[(i - 1) / 2] > key) {
+      this.keys[i] = this.keys[(i - 1) / 2];
+      this.values[i] = this.values[(i - 1) / 2];
+      i = (i - 1) / 2;
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+  }
+
+  // the key of the smallest item
+  int peekKey() {
+    return this.keys[0];
+  }
+
+  // returns the value with the smallest key
+  // EFFECT: removes it from the heap
+  int pop() {
+    int top = this.values[0];
+    this.size = this.size - 1;
+    int key = this.keys[this.size];
+    int value = this.values[this.size];
+    int i = 0;
+    // moves smaller children up until the last item fits
+    while ((2 * i) + 1 < this.size) {
+      int child = (2 * i) + 1;
+      if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) {
+        child = child + 1;
+      }
+      if (this.keys[child] >= key) {
+        break;
+      }
+      this.keys[i] = this.keys[child];
+      this.values[i] = this.values[child];
+      i = child;
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+    return top;
+  }
+}
+
+// the part of a maze that fits in the window: the size of a cell on screen, and
+// the columns and rows of cells in view starting from a top left cell. The game
+// only draws the cells in view, so a frame costs as much as the window whatever
+// the size of the maze
+class Viewport {
+  // the smallest cell that still shows a passage between its two walls, and the
+  // largest one zooming in goes to
+  static final int MIN_CELL_SIZE = 4;
+  static final int MAX_CELL_SIZE = 64;
+
+  int mazeColumns;
+  int mazeRows;
+  int windowWidth;
+  int windowHeight;
+  int cellSize;
+  int columns;
+  int rows;
+  int left;
+  int top;
+
+  // a view of a maze of the given columns and rows through a window of the
+  // given pixel size, starting at its top left cell
+  Viewport(int mazeColumns, int mazeRows, int cellSize, int windowWidth, int windowHeight) {
+    this.mazeColumns = mazeColumns;
+    this.mazeRows = mazeRows;
+    this.windowWidth = windowWidth;
+    this.windowHeight = windowHeight;
+    this.cellSize = Math.max(1, cellSize);
+    this.fit();
+  }
+
+  // a view of the same maze and window, at its top left cell
+  Viewport copy() {
+    return new Viewport(this.mazeColumns, this.mazeRows, this.cellSize, this.windowWidth,
+        this.windowHeight);
+  }
+
+  // EFFECT: sizes the view to the cells that fit in the window, and keeps it
+  // inside the maze
+  void fit() {
+    this.columns = Math.max(1, Math.min(this.mazeColumns, this.windowWidth / this.cellSize));
+    this.rows = Math.max(1, Math.min(this.mazeRows, this.windowHeight / this.cellSize));
+    this.moveTo(this.left, this.top);
+  }
+
+  // EFFECT: moves the top left of the view to the given cell, as near as it can
+  // get without showing past the edge of the maze
+  void moveTo(int left, int top) {
+    this.left = Math.max(0, Math.min(left, this.mazeColumns - this.columns));
+    this.top = Math.max(0, Math.min(top, this.mazeRows - this.rows));
+  }
+
+  // EFFECT: moves the view by the given number of cells across and down
+  void pan(int across, int down) {
+    this.moveTo(this.left + across, this.top + down);
+  }
+
+  // EFFECT: changes the size of a cell on screen, within the smallest and
+  // largest sizes, keeping the same cell in the middle of the view
+  void zoom(int cellSize) {
+    int x = this.left + (this.columns / 2);
+    int y = this.top + (this.rows / 2);
+    this.cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize));
+    this.fit();
+    this.moveTo(x - (this.columns / 2), y - (this.rows / 2));
+  }
+
+  // EFFECT: brings the cell at the given coordinates back to the middle of the
+  // view once it strays into the outer quarter on any side, so the view only
+  // jumps now and then rather than every step
+  void follow(int x, int y) {
+    int marginX = this.columns / 4;
+    int marginY = this.rows / 4;
+    if (x < this.left + marginX || x >= this.left + this.columns - marginX
+        || y < this.top + marginY || y >= this.top + this.rows - marginY) {
+      this.moveTo(x - (this.columns / 2), y - (this.rows / 2));
+    }
+  }
+
+  // determines if the cell at the given coordinates is in view
+  boolean contains(int x, int y) {
+    return x >= this.left && x < this.left + this.columns && y >= this.top
+        && y < this.top + this.rows;
+  }
+}
+
+// draws a MazeGrid straight from its wall bitmasks into an int[] of ARGB pixels,
+// one row span at a time, without building any images. It draws the columns and
+// rows of cells from a top left cell, which is the whole grid unless it is given
+// a window onto it
+class RasterRenderer {
+  static final int WALL = 0xFF000000;
+
+  MazeGrid grid;
+  int cellSize;
+  int columns;
+  int rows;
+  int left;
+  int top;
+  int width;
+  int height;
+  int[] pixels;
+
+  // creates a blank pixel buffer big enough for every cell of the grid
+  RasterRenderer(MazeGrid grid, int cellSize) {
+    this(grid, cellSize, grid.width, grid.height);
+  }
+
+  // creates a blank pixel buffer for a window of the given number of columns
+  // and rows of the grid's cells, starting at its top left cell
+  RasterRenderer(MazeGrid grid, int cellSize, int columns, int rows) {
+    this(columns, rows, cellSize);
+    this.grid = grid;
+  }
+
+  // creates a blank pixel buffer for the given number of columns and rows of
+  // cells, painted a block at a time rather than from a grid
+  RasterRenderer(int columns, int rows, int cellSize) {
+    this.cellSize = Math.max(1, cellSize);
+    this.columns = columns;
+    this.rows = rows;
+    this.width = columns * this.cellSize;
+    this.height = rows * this.cellSize;
+    this.pixels = new int[this.width * this.height];
+  }
+
+  // EFFECT: paints every cell in the window
+  void renderAll() {
+    for (int row = 0; row < this.rows; row++) {
+      for (int column = 0; column < this.columns; column++) {
+        this.paintCell(this.grid.cellAt(this.left + column, this.top + row));
+      }
+    }
+  }
+
+  // EFFECT: paints the supplied cell and the walls along its sides. Each pixel
+  // row of the cell is one Arrays.fill, which the JIT turns into wide stores
+  void paintCell(int cell) {
+    int walls = 0;
+    for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+      if (this.grid.hasWall(cell, side)) {
+        walls = walls | side;
+      }
+    }
+    this.paintBlock(this.grid.xOf(cell) - this.left, this.grid.yOf(cell) - this.top,
+        Palette.ARGB[this.grid.colors[cell]], walls);
+  }
+
+  // EFFECT: paints the cell block at the given column and row in the fill
+  // colour, with a wall along each side in the walls mask
+  void paintBlock(int column, int row, int fill, int walls) {
+    int left = column * this.cellSize;
+    int top = row * this.cellSize;
+    int last = this.cellSize - 1;
+    boolean wallLeft = (walls & MazeGrid.LEFT) != 0;
+    boolean wallRight = (walls & MazeGrid.RIGHT) != 0;
+    boolean wallTop = (walls & MazeGrid.TOP) != 0;
+    boolean wallBottom = (walls & MazeGrid.BOTTOM) != 0;
+    for (int line = 0; line < this.cellSize; line++) {
+      int start = ((top + line) * this.width) + left;
+      if ((line == 0 && wallTop) || (line == last && wallBottom)) {
+        Arrays.fill(this.pixels, start, start + this.cellSize, WALL);
+      }
+      else {
+        Arrays.fill(this.pixels, start, start + this.cellSize, fill);
+        if (wallLeft) {
+          this.pixels[start] = WALL;
+        }
+        if (wallRight) {
+          this.pixels[start + last] = WALL;
+        }
+      }
+    }
+  }
+
+  // the ARGB value of the pixel at the given coordinates
+  int pixelAt(int x, int y) {
+    return this.pixels[(y * this.width) + x];
+  }
+}
+
+// shows the part of a MazeGrid in its Viewport as a single pixel image: dirty
+// cells in view are repainted into a RasterRenderer's buffer, and only their
+// pixels are copied into the image, so a frame costs as much as the changes in
+// it, and never more than the window
+class MazeRenderer {
+  // the size of the colour table, a power of two well above the palette's
+  static final int PALETTE_SLOTS = 32;
+
+  MazeGrid grid;
+  Viewport view;
+  DirtyCells dirty;
+  RasterRenderer raster;
+  ComputedPixelImage buffer;
+  // the shared Color of each pixel value drawn so far, in a small open-addressed
+  // table keyed by the value, so a lookup never boxes it
+  int[] paletteArgb;
+  Color[] paletteColors;
+  int paletteSize;
+
+  // creates a renderer for the whole of the supplied grid, and starts tracking
+  // its changes
+  MazeRenderer(MazeGrid grid, int cellSize) {
+    this(grid, new Viewport(grid.width, grid.height, cellSize,
+        grid.width * Math.max(1, cellSize), grid.height * Math.max(1, cellSize)));
+  }
+
+  // creates a renderer for the part of the supplied grid in the given view, and
+  // starts tracking its changes
+  MazeRenderer(MazeGrid grid, Viewport view) {
+    this.grid = grid;
+    this.view = view;
+    this.dirty = new DirtyCells(grid.cellCount());
+    this.dirty.markAll();
+    this.grid.dirty = this.dirty;
+    this.raster = new RasterRenderer(grid, view.cellSize, view.columns, view.rows);
+    this.raster.left = view.left;
+    this.raster.top = view.top;
+    this.buffer = new ComputedPixelImage(this.raster.width, this.raster.height);
+    this.paletteArgb = new int[PALETTE_SLOTS];
+    this.paletteColors = new Color[PALETTE_SLOTS];
+    this.paletteSize = 0;
+    this.colorOf(RasterRenderer.WALL);
+    for (int argb : Palette.ARGB) {
+      this.colorOf(argb);
+    }
+  }
+
+  // brings the image up to date with the grid and the view, and returns it
+  // EFFECT: repaints every dirty cell in view, or the whole view once it has
+  // moved or zoomed, and empties the dirty set
+  WorldImage render() {
+    if (this.raster.cellSize != this.view.cellSize || this.raster.columns != this.view.columns
+        || this.raster.rows != this.view.rows) {
+      this.raster = new RasterRenderer(this.grid, this.view.cellSize, this.view.columns,
+          this.view.rows);
+      this.buffer = new ComputedPixelImage(this.raster.width, this.raster.height);
+      this.dirty.markAll();
+    }
+    if (this.raster.left != this.view.left || this.raster.top != this.view.top) {
+      this.raster.left = this.view.left;
+      this.raster.top = this.view.top;
+      this.dirty.markAll();
+    }
+    if (this.dirty.all) {
+      this.raster.renderAll();
+      this.present(0, 0, this.raster.width, this.raster.height);
+    }
+    else {
+      int size = this.raster.cellSize;
+      for (int i = 0; i < this.dirty.count; i++) {
+        int cell = this.dirty.cells[i];
+        int x = this.grid.xOf(cell);
+        int y = this.grid.yOf(cell);
+        if (this.view.contains(x, y)) {
+          this.raster.paintCell(cell);
+          this.present((x - this.view.left) * size, (y - this.view.top) * size, size, size);
+        }
+      }
+    }
+    this.dirty.clear();
+    return this.buffer;
+  }
+
+  // EFFECT: copies the given rectangle of the raster's pixels into the image
+  void present(int x, int y, int width, int height) {
+    int lastArgb = 0;
+    Color lastColor = null;
+    for (int row = y; row < y + height; row++) {
+      for (int col = x; col < x + width; col++) {
+        int argb = this.raster.pixelAt(col, row);
+        // neighboring pixels are usually the same colour, so only look up changes
+        if (lastColor == null || argb != lastArgb) {
+          lastArgb = argb;
+          lastColor = this.colorOf(argb);
+        }
+        this.buffer.setColorAt(col, row, lastColor);
+      }
+    }
+  }
+
+  // the Color for the given rgb value, shared between every pixel that uses it
+  // EFFECT: adds a colour not seen before to the table, while it has room
+  Color colorOf(int rgb) {
+    int slot = (rgb * 0x9E3779B9) >>> 27;
+    while (this.paletteColors[slot] != null) {
+      if (this.paletteArgb[slot] == rgb) {
+        return this.paletteColors[slot];
+      }
+      slot = (slot + 1) & (PALETTE_SLOTS - 1);
+    }
+    Color color = new Color(rgb);
+    // a table kept half empty keeps every probe short
+    if (this.paletteSize < PALETTE_SLOTS / 2) {
+      this.paletteArgb[slot] = rgb;
+      this.paletteColors[slot] = color;
+      this.paletteSize = this.paletteSize + 1;
+    }
+    return color;
+  }
+}
+
+// MazeWorld class
+class MazeWorld extends World {
+  int width;
+  int height;
+  MazeGrid grid;
+  MazeGenerator generator;
+  int generationTicks;
+  long tickBudgetNanos;
+  long seed;
+  SplittableRandom rand;
+  // the seed and algorithm the current maze was carved with, whether it was
+  // loaded from a file, and the file it is saved to and loaded from
+  long mazeSeed;
+  String algorithm;
+  boolean fromFile;
+  Path savePath;
+  int xCells;
+  int yCells;
+  int cellSize;
+  int curCell;
+  // the cell the view was last moved to follow
+  int followed;
+  GameMode gameMode;
+  SolverPlayback playback;
+  MazeRenderer renderer;
+  // the index of the finished maze, built the first time a hint is asked for
+  MazeIndex index;
+  PerfStats stats;
+  // the thread new mazes are built on, started by the first reset, and the maze
+  // it is building, if any
+  ExecutorService builder;
+  PreparedMaze preparing;
+  CompletableFuture<PreparedMaze> pending;
+  // why the last maze the builder thread was building couldn't be built, if it
+  // couldn't
+  Throwable buildFailure;
+  // the stock of ready mazes resets take from, if the game keeps one
+  MazePool pool;
+
+  // initializes the game with just the number of cells per row supplied
+  MazeWorld(int xCells) {
+    this(xCells, new SplittableRandom().nextLong());
+  }
+
+  // initializes the game with the number of cells per row and the seed that
+  // every maze it builds is generated from. Generation is animated over about
+  // 200 ticks, spending at most 8ms of each tick on it
+  MazeWorld(int xCells, long seed) {
+    this(xCells, seed, 200, 8000000);
+  }
+
+  // initializes the game with the number of cells per row, the seed, how many
+  // ticks the generation animation should take (0 builds the whole maze before
+  // the first frame), and how many nanoseconds of a tick it may spend at most
+  MazeWorld(int xCells, long seed, int generationTicks, long tickBudgetNanos) {
+    this(xCells, seed, generationTicks, tickBudgetNanos, new KruskalGenerator());
+  }
+
+  // initializes the game with all of the above, and the algorithm that generates
+  // every maze
+  MazeWorld(int xCells, long seed, int generationTicks, long tickBudgetNanos,
+      MazeGenerator generator) {
+    this.width = 800;
+    this.height = 600;
+    this.generationTicks = generationTicks;
+    this.tickBudgetNanos = tickBudgetNanos;
+    this.seed = seed;
+    this.rand = new SplittableRandom(seed);
+    this.xCells = xCells;
+    this.yCells = (xCells / 4) * 3;
+    if (this.xCells < 4) {
+      this.yCells = this.xCells;
+    }
+    this.cellSize = Math.max(Viewport.MIN_CELL_SIZE, this.width / this.xCells);
+    this.grid = new MazeGrid(this.xCells, this.yCells);
+    this.generator = generator;
+    this.savePath = Paths.get("maze.bin");
+    this.curCell = 0;
+    this.gameMode = GameMode.MANUAL;
+    this.playback = null;
+    this.renderer = new MazeRenderer(this.grid, this.newView());
+    this.stats = new PerfStats();
+  }
+
+  // initializes the game to an existing grid of cells
+  MazeWorld(MazeGrid grid) {
+    this.width = 800;
+    this.height = 600;
+    this.generationTicks = 200;
+    this.tickBudgetNanos = 8000000;
+    this.seed = 0;
+    this.rand = new SplittableRandom(this.seed);
+    this.xCells = grid.width;
+    this.yCells = grid.height;
+    this.cellSize = Math.max(Viewport.MIN_CELL_SIZE, this.width / this.xCells);
+    this.grid = grid;
+    this.generator = new KruskalGenerator(this.grid, this.rand);
+    this.mazeSeed = this.seed;
+    this.algorithm = this.generator.name();
+    this.fromFile = false;
+    this.savePath = Paths.get("maze.bin");
+    this.curCell = 0;
+    this.gameMode = GameMode.MANUAL;
+    this.playback = null;
+    this.renderer = new MazeRenderer(this.grid, this.newView());
+    this.stats = new PerfStats();
+  }
+
+  // builds the world based on the inputted number of cells per row of the Maze
+  // EFFECT: the constructor's blank grid is used for the first maze (no
+  // algorithm is recorded until a maze is started), and every later one gets a
+  // fresh grid, so a new world only allocates and begins one
+  public MazeWorld buildWorld() {
+    if (this.algorithm != null) {
+      this.grid = new MazeGrid(this.xCells, this.yCells);
+      this.renderer = new MazeRenderer(this.grid, this.newView());
+    }
+    this.beginMaze();
+    // EFFECT: an instant build carves the whole maze before the first frame
+    if (this.generationTicks == 0) {
+      this.generator.finish();
+    }
+    // EFFECT: first cell is green
+    this.grid.paint(0, Palette.START);
+    // EFFECT: the current operating cell is the first cell, which the view has
+    // yet to follow
+    this.curCell = 0;
+    this.followed = -1;
+    // EFFECT: last cell is purple
+    this.grid.paint(this.lastCell(), Palette.GOAL);
+    return this;
+  }
+
+  // a view of the current maze's size through this game's window, with cells of
+  // this game's cell size
+  Viewport newView() {
+    return new Viewport(this.xCells, this.yCells, this.cellSize, this.width, this.height);
+  }
+
+  // EFFECT: moves the view to keep the player in sight, once the player has
+  // moved since it last did, so looking around by hand lasts until then
+  void followPlayer() {
+    if (this.curCell != this.followed) {
+      this.followed = this.curCell;
+      this.renderer.view.follow(this.grid.xOf(this.curCell), this.grid.yOf(this.curCell));
+    }
+  }
+
+  // EFFECT: zooms the view to the given cell size, within its limits, and keeps
+  // the player in sight. New mazes are shown at the same size
+  void zoom(int cellSize) {
+    Viewport view = this.renderer.view;
+    view.zoom(cellSize);
+    this.cellSize = view.cellSize;
+    view.follow(this.grid.xOf(this.curCell), this.grid.yOf(this.curCell));
+  }
+
+  // EFFECT: starts carving a new maze into the grid, from a seed of its own
+  // drawn from the game's seed so the maze can be saved with it
+  void beginMaze() {
+    this.mazeSeed = this.rand.nextLong();
+    this.algorithm = this.generator.name();
+    this.fromFile = false;
+    this.index = null;
+    this.generator.begin(this.grid, new SplittableRandom(this.mazeSeed));
+  }
+
+  // EFFECT: swaps in a ready maze from the pool if there is one, and otherwise
+  // starts building a new maze on the builder thread, from a seed drawn the same
+  // way as beginMaze's, leaving the current one in play until it is swapped in
+  void reset() {
+    if (this.preparing != null) {
+      this.preparing.abandoned = true;
+      this.preparing = null;
+      this.pending = null;
+    }
+    if (this.pool != null) {
+      // a maze loaded from a file may have changed the size
+      if (!this.pool.builds(this.xCells, this.yCells, this.generator.name())) {
+        this.usePool(this.pool.size, this.pool.parallelism);
+      }
+      PreparedMaze next = this.pool.take();
+      if (next != null) {
+        this.swapIn(next);
+        return;
+      }
+    }
+    if (this.builder == null) {
+      this.builder = Executors.newSingleThreadExecutor(new BuilderThreads());
+    }
+    this.preparing = new PreparedMaze(new MazeGenerators().named(this.generator.name()),
+        this.rand.nextLong(), this.newView(), this.generationTicks == 0);
+    this.pending = CompletableFuture.supplyAsync(this.preparing, this.builder);
+  }
+
+  // EFFECT: once the builder thread has finished the maze it was building,
+  // makes it the current maze, in manual mode. If the build failed, keeps the
+  // current maze and records why
+  void swapInPrepared() {
+    if (this.pending != null && this.pending.isDone()) {
+      CompletableFuture<PreparedMaze> done = this.pending;
+      this.pending = null;
+      this.preparing = null;
+      try {
+        this.swapIn(done.join());
+      }
+      catch (CompletionException e) {
+        this.buildFailure = e.getCause();
+        System.err.println("could not build the maze: " + e.getCause());
+      }
+    }
+  }
+
+  // EFFECT: makes the given built maze the current one, in manual mode
+  void swapIn(PreparedMaze next) {
+    this.grid = next.grid;
+    this.renderer = next.renderer;
+    // the view may have zoomed since the maze was started
+    if (this.renderer.view.cellSize != this.cellSize) {
+      this.renderer.view.zoom(this.cellSize);
+    }
+    this.generator = next.generator;
+    this.mazeSeed = next.seed;
+    this.algorithm = next.generator.name();
+    this.fromFile = false;
+    this.index = null;
+    this.curCell = 0;
+    // the new view hasn't followed anyone yet
+    this.followed = -1;
+    this.gameMode = GameMode.MANUAL;
+    this.playback = null;
+    this.stats.edgesProcessed = this.stats.edgesProcessed + next.steps;
+  }
+
+  // keeps a pool of the given number of ready mazes for resets to take from,
+  // refilled by the given number of worker threads, and returns this world
+  // EFFECT: closes the pool it kept before, if any
+  MazeWorld usePool(int size, int parallelism) {
+    if (this.pool != null) {
+      this.pool.close();
+    }
+    this.pool = new MazePool(this.newView(), this.generator.name(), this.generationTicks == 0,
+        this.rand.nextLong(), size, parallelism);
+    return this;
+  }
+
+  // EFFECT: carves the rest of the current maze at once
+  void finishMaze() {
+    if (!this.isGenerated()) {
+      GenerationEvent event = new GenerationEvent();
+      event.begin();
+      this.generator.finish();
+      if (event.shouldCommit()) {
+        event.algorithm = this.algorithm;
+        event.cells = this.grid.cellCount();
+        event.finished = true;
+        event.commit();
+      }
+    }
+  }
+
+  // EFFECT: replaces the current maze with the one in the supplied file, ready
+  // to be played manually
+  void load(MazeFile file) throws IOException {
+    this.grid = file.load();
+    // a maze still being built would replace the loaded one
+    if (this.preparing != null) {
+      this.preparing.abandoned = true;
+      this.preparing = null;
+      this.pending = null;
+    }
+    this.xCells = file.width;
+    this.yCells = file.height;
+    this.cellSize = Math.max(Viewport.MIN_CELL_SIZE, this.width / this.xCells);
+    this.renderer = new MazeRenderer(this.grid, this.newView());
+    this.mazeSeed = file.seed;
+    this.algorithm = file.algorithm;
+    this.fromFile = true;
+    this.index = null;
+    this.grid.paint(0, Palette.START);
+    this.grid.paint(this.lastCell(), Palette.GOAL);
+    this.curCell = 0;
+    this.followed = -1;
+    this.gameMode = GameMode.MANUAL;
+    this.playback = null;
+  }
+
+  // determines if the supplied edge is part of the maze's spanning tree, which
+  // is exactly when it has been opened into a passage
+  boolean inTree(int edge) {
+    return this.grid.isOpen(edge);
+  }
+
+  // determines if the spanning tree connects every cell
+  boolean isGenerated() {
+    return this.fromFile || this.generator.isDone();
+  }
+
+  // the id of the last cell, which is the goal of the maze
+  int lastCell() {
+    return this.grid.cellCount() - 1;
+  }
+
+  // finds the cell to the left of the specified coordinates
+  public int findLeft(int x, int y) {
+    return (y * this.xCells) + x - 1;
+  }
+
+  // finds the cell to the top of the specified coordinates
+  public int findTop(int x, int y) {
+    return ((y - 1) * this.xCells) + x;
+  }
+
+  // finds the cell to the right of the specified coordinates
+  public int findRight(int x, int y) {
+    return (y * this.xCells) + x + 1;
+  }
+
+  // finds the cell to the bottom of the specified coordinates
+  public int findBottom(int x, int y) {
+    return ((y + 1) * this.xCells) + x;
+  }
+
+  // makeScene method for this maze, which only repaints the cells that changed
+  // since the last frame
+  public WorldScene makeScene() {
+    long start = System.nanoTime();
+    WorldScene s = new WorldScene(this.width, this.height);
+    long drawStart = System.nanoTime();
+    WorldImage maze = this.renderer.render();
+    this.stats.draw.record(System.nanoTime() - drawStart);
+    s.placeImageXY(maze, this.width / 2, this.height / 2);
+    this.stats.imagesAllocated = this.stats.imagesAllocated + 1;
+    if (this.curCell == this.lastCell()) {
+      s.placeImageXY(new TextImage("YOU WIN!", 50, Color.black), this.width / 2,
+          this.height / 2);
+      this.stats.imagesAllocated = this.stats.imagesAllocated + 1;
+    }
+    if (this.preparing != null) {
+      s.placeImageXY(new TextImage("building a new maze... " + this.preparing.percentDone()
+          + "%", 24, Color.black), this.width / 2, this.height - 20);
+      this.stats.imagesAllocated = this.stats.imagesAllocated + 1;
+    }
+    if (this.stats.overlay) {
+      this.placeOverlay(s);
+    }
+    this.stats.scene.record(System.nanoTime() - start);
+    return s;
+  }
+
+  // EFFECT: places the performance numbers in the top left corner of the scene
+  void placeOverlay(WorldScene s) {
+    String[] lines = this.stats.lines();
+    WorldImage[] rest = new WorldImage[lines.length - 1];
+    for (int i = 1; i < lines.length; i++) {
+      rest[i - 1] = new TextImage(lines[i], 12, Color.red);
+    }
+    WorldImage text = new AboveAlignImage(AlignModeX.LEFT,
+        new TextImage(lines[0], 12, Color.red), rest);
+    s.placeImageXY(text, (int) (text.getWidth() / 2) + 4, (int) (text.getHeight() / 2) + 4);
+    this.stats.imagesAllocated = this.stats.imagesAllocated + lines.length + 1;
+  }
+
+  // draws a single cell, with a line on each side that is still a wall
+  WorldImage drawCell(int cell) {
+    // horizontal line image
+    WorldImage hori = new LineImage(new Posn(this.cellSize, 0), Color.BLACK);
+    // vertical line image
+    WorldImage verti = new LineImage(new Posn(0, this.cellSize), Color.BLACK);
+    // square image of the cell itself
+    WorldImage image = new RectangleImage(this.cellSize, this.cellSize, OutlineMode.SOLID,
+        new Color(Palette.ARGB[this.grid.colors[cell]]));
+    // adds a line to denote a wall on each side of the cell
+    if (this.grid.hasWall(cell, MazeGrid.LEFT)) {
+      image = new BesideImage(verti, image);
+    }
+    if (this.grid.hasWall(cell, MazeGrid.RIGHT)) {
+      image = new BesideImage(image, verti);
+    }
+    if (this.grid.hasWall(cell, MazeGrid.TOP)) {
+      image = new AboveImage(hori, image);
+    }
+    if (this.grid.hasWall(cell, MazeGrid.BOTTOM)) {
+      image = new AboveImage(image, hori);
+    }
+    return image;
+  }
+
+  // visualizes every cell and wall in the grid as one image tree, rebuilt from
+  // scratch
+  public WorldImage draw() {
+    WorldImage base = new EmptyImage();
+    WorldImage winText = new TextImage("YOU WIN!", 50, Color.black);
+    for (int cell = 0; cell < this.grid.cellCount(); cell = cell + 1) {
+      // offsetAlign the new cell image with the previous base
+      // offset by multiplying cell coordinates by size
+      base = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.drawCell(cell),
+          this.grid.xOf(cell) * -this.cellSize, this.grid.yOf(cell) * -this.cellSize, base);
+    }
+    if (this.curCell == this.lastCell()) {
+      base = new OverlayImage(winText, base);
+    }
+    return base;
+  }
+
+  // onTick method
+  // EFFECT: removes walls from smallest to largest weight, a batch per tick sized
+  // so the animation takes about generationTicks ticks whatever the maze size, but
+  // never more than the tick's time budget
+  public void onTick() {
+    long start = System.nanoTime();
+    this.swapInPrepared();
+    if (!this.isGenerated()) {
+      // only made while a recording wants it, so ticks allocate nothing otherwise
+      GenerationEvent event = null;
+      if (GenerationEvent.TYPE.isEnabled()) {
+        event = new GenerationEvent();
+        event.begin();
+      }
+      int taken = this.generator.stepFor(
+          Math.max(1, this.generator.estimatedSteps() / Math.max(1, this.generationTicks)),
+          this.tickBudgetNanos);
+      this.stats.edgesProcessed = this.stats.edgesProcessed + taken;
+      if (event != null && event.shouldCommit()) {
+        event.algorithm = this.algorithm;
+        event.cells = this.grid.cellCount();
+        event.steps = taken;
+        event.commit();
+      }
+    }
+    // plays the bfs or dfs game mode's search once the maze is complete
+    if (this.gameMode != GameMode.MANUAL && this.curCell != this.lastCell()
+        && this.isGenerated()) {
+      if (this.playback == null) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        this.playback = this.solve();
+        this.stats.cellsVisited = this.stats.cellsVisited + this.playback.cells.length;
+        if (event.shouldCommit()) {
+          event.mode = this.gameMode.key;
+          event.cells = this.grid.cellCount();
+          event.visited = this.playback.cells.length;
+          event.commit();
+        }
+      }
+      if (this.playback.hasNext()) {
+        this.curCell = this.playback.next();
+        this.grid.paint(this.curCell, Palette.VISITED);
+        this.grid.traced[this.curCell] = true;
+      }
+    }
+    this.followPlayer();
+    this.stats.tick.record(System.nanoTime() - start);
+  }
+
+  // runs the current game mode's search from the first cell to the last, and
+  // returns the playback of the cells it visits, ending at the last cell. A*
+  // plays back just the shortest path it finds
+  SolverPlayback solve() {
+    if (this.gameMode == GameMode.ASTAR) {
+      return new SolverPlayback(new AStarSolver().solve(this.grid, 0, this.lastCell()));
+    }
+    int[] visited;
+    if (this.gameMode == GameMode.BFS) {
+      visited = this.bfs(0, this.lastCell());
+    }
+    else {
+      visited = this.dfs(0, this.lastCell());
+    }
+    int[] cells = Arrays.copyOf(visited, visited.length + 1);
+    cells[visited.length] = this.lastCell();
+    return new SolverPlayback(cells);
+  }
+
+  // moves the player through the passage on the given side of the current cell
+  // EFFECT: colors the cell left behind, and traces the cell moved into
+  void move(int side) {
+    if (this.grid.hasPassage(this.curCell, side)) {
+      this.grid.paint(this.curCell, Palette.VISITED);
+      this.curCell = this.grid.neighbor(this.curCell, side);
+      this.grid.modifyCell(this.curCell);
+    }
+  }
+
+  // the on key event method, timed
+  public void onKeyEvent(String k) {
+    long start = System.nanoTime();
+    this.handleKey(k);
+    this.followPlayer();
+    this.stats.key.record(System.nanoTime() - start);
+  }
+
+  // EFFECT: acts on the given key
+  void handleKey(String k) {
+    // makes sure the game mode is manual
+    if (this.gameMode == GameMode.MANUAL && this.curCell != this.lastCell()) {
+      // left key event
+      if (k.equals("left")) {
+        this.move(MazeGrid.LEFT);
+      }
+      // right key event
+      if (k.equals("right")) {
+        this.move(MazeGrid.RIGHT);
+      }
+      // up key event
+      if (k.equals("up")) {
+        this.move(MazeGrid.TOP);
+      }
+      // down key event
+      if (k.equals("down")) {
+        this.move(MazeGrid.BOTTOM);
+      }
+    }
+
+    // shows or hides the timings overlay
+    if (k.equals("p")) {
+      this.stats.overlay = !this.stats.overlay;
+    }
+    // zooms the view in or out
+    if (k.equals("+") || k.equals("=")) {
+      this.zoom(this.renderer.view.cellSize * 2);
+    }
+    if (k.equals("-")) {
+      this.zoom(this.renderer.view.cellSize / 2);
+    }
+    // looks around the maze a quarter of the view at a time
+    if (k.equals("8")) {
+      this.renderer.view.pan(0, -Math.max(1, this.renderer.view.rows / 4));
+    }
+    if (k.equals("2")) {
+      this.renderer.view.pan(0, Math.max(1, this.renderer.view.rows / 4));
+    }
+    if (k.equals("4")) {
+      this.renderer.view.pan(-Math.max(1, this.renderer.view.columns / 4), 0);
+    }
+    if (k.equals("6")) {
+      this.renderer.view.pan(Math.max(1, this.renderer.view.columns / 4), 0);
+    }
+    // resets the game to a new random board, and to the manual mode, once the
+    // builder thread has it ready
+    if (k.equals("r")) {
+      this.reset();
+    }
+    // shows the next step towards the goal, finishing the maze first
+    if (k.equals("h") && this.gameMode == GameMode.MANUAL && this.curCell != this.lastCell()) {
+      this.finishMaze();
+      if (this.index == null) {
+        this.index = new MazeIndex(this.grid);
+      }
+      int next = this.index.nextStep(this.curCell, this.lastCell());
+      if (next != this.lastCell()) {
+        this.grid.paint(next, Palette.HINT);
+      }
+    }
+    // saves the current maze, finishing it first
+    if (k.equals("s")) {
+      this.finishMaze();
+      try {
+        new MazeFile(this.savePath).save(this.grid, this.mazeSeed, this.algorithm);
+      }
+      catch (IOException e) {
+        System.err.println("could not save the maze: " + e.getMessage());
+      }
+    }
+    // replaces the current maze with the saved one, in manual mode
+    if (k.equals("l")) {
+      try {
+        this.load(new MazeFile(this.savePath));
+      }
+      catch (IOException e) {
+        System.err.println("could not load the maze: " + e.getMessage());
+      }
+    }
+    // resets the game to be in manual mode
+    if (k.equals("m") && this.gameMode != GameMode.MANUAL) {
+      for (int i = 0; i < this.lastCell(); i++) {
+        this.grid.paint(i, Palette.UNVISITED);
+        this.grid.traced[i] = false;
+      }
+      this.grid.paint(0, Palette.START);
+      this.grid.traced[0] = true;
+      this.playback = null;
+      this.gameMode = GameMode.MANUAL;
+      this.curCell = 0;
+      this.grid.paint(this.lastCell(), Palette.GOAL);
+      this.grid.traced[this.lastCell()] = false;
+    }
+    // changes the gamemode to dfs
+    if (k.equals("d") && this.gameMode != GameMode.DFS) {
+      // the search needs the whole maze, so finish drawing it first
+      this.finishMaze();
+      for (int i = 1; i < this.lastCell(); i++) {
+        this.grid.paint(i, Palette.UNVISITED);
+        this.grid.traced[i] = false;
+      }
+      this.playback = null;
+      this.gameMode = GameMode.DFS;
+      this.curCell = 0;
+      this.grid.paint(this.lastCell(), Palette.GOAL);
+      this.grid.traced[this.lastCell()] = false;
+    }
+    // changes the gamemode to bfs
+    if (k.equals("b") && this.gameMode != GameMode.BFS) {
+      // the search needs the whole maze, so finish drawing it first
+      this.finishMaze();
+      for (int i = 1; i < this.lastCell(); i++) {
+        this.grid.paint(i, Palette.UNVISITED);
+        this.grid.traced[i] = false;
+      }
+      this.playback = null;
+      this.gameMode = GameMode.BFS;
+      this.curCell = 0;
+      this.grid.paint(this.lastCell(), Palette.GOAL);
+      this.grid.traced[this.lastCell()] = false;
+    }
+    // changes the gamemode to A*, which walks the shortest path
+    if (k.equals("a") && this.gameMode != GameMode.ASTAR) {
+      // the search needs the whole maze, so finish drawing it first
+      this.finishMaze();
+      for (int i = 1; i < this.lastCell(); i++) {
+        this.grid.paint(i, Palette.UNVISITED);
+        this.grid.traced[i] = false;
+      }
+      this.playback = null;
+      this.gameMode = GameMode.ASTAR;
+      this.curCell = 0;
+      this.grid.paint(this.lastCell(), Palette.GOAL);
+      this.grid.traced[this.lastCell()] = false;
+    }
+  }
+
+  // the bfs method
+  int[] bfs(int from, int to) {
+    return searchHelp(from, to, new Queue<Integer>());
+  }
+
+  // the dfs method
+  int[] dfs(int from, int to) {
+    return searchHelp(from, to, new Stack<Integer>());
+  }
+
+  // the searchHelp method for bfs and dfs, returning the cells it visited before
+  // reaching the to cell, in visiting order
+  int[] searchHelp(int from, int to, ICollection<Integer> worklist) {
+    return new WorklistSearch(this.grid).visit(from, to, worklist);
+  }
+}
+
+// the search behind the game's bfs and dfs modes: a worklist of cells, taken
+// from a queue for bfs and a stack for dfs, with the cells it visits recorded in
+// order. It doesn't need the World, so benchmarks can run it headless
+class WorklistSearch {
+  MazeGrid grid;
+
+  // a search over the supplied grid
+  WorklistSearch(MazeGrid grid) {
+    this.grid = grid;
+  }
+
+  // the cells visited before reaching the to cell, in visiting order
+  int[] visit(int from, int to, ICollection<Integer> worklist) {
+    boolean[] alreadySeen = new boolean[this.grid.cellCount()];
+    int[] visited = new int[this.grid.cellCount()];
+    int count = 0;
+
+    // Initialize the worklist with the from cell
+    worklist.add(from);
+    // As long as the worklist isn't empty...
+    while (!worklist.isEmpty()) {
+      int next = worklist.remove();
+      if (next == to) {
+        return Arrays.copyOf(visited, count); // Success!
+      }
+      else if (alreadySeen[next]) {
+        // do nothing: we've already seen this one
+      }
+      else {
+        // add all the neighbors of next to the worklist for further processing
+        if (this.grid.hasPassage(next, MazeGrid.LEFT)) {
+          worklist.add(this.grid.neighbor(next, MazeGrid.LEFT));
+        }
+        if (this.grid.hasPassage(next, MazeGrid.RIGHT)) {
+          worklist.add(this.grid.neighbor(next, MazeGrid.RIGHT));
+        }
+        if (this.grid.hasPassage(next, MazeGrid.TOP)) {
+          worklist.add(this.grid.neighbor(next, MazeGrid.TOP));
+        }
+        if (this.grid.hasPassage(next, MazeGrid.BOTTOM)) {
+          worklist.add(this.grid.neighbor(next, MazeGrid.BOTTOM));
+        }
+        // add next to alreadySeen, since we're done with it
+        alreadySeen[next] = true;
+        visited[count] = next;
+        count = count + 1;
+      }
+    }
+    // We haven't found the to cell, and there are no more to try
+    return Arrays.copyOf(visited, count);
+  }
+}
+
+// a search for the shortest way through a maze, held in a MazeGrid or read
+// straight out of a MappedMaze
+interface MazeSolver {
+  // the cells of the shortest path from one cell to the other, both ends
+  // included, or an empty array if they aren't connected
+  int[] solve(MazeWalls maze, int from, int to);
+
+  // how many cells the last solve explored
+  int explored();
+
+  // the name of this search
+  String name();
+}
+
+// the bookkeeping every MazeSolver shares: a parent pointer per cell, and a
+// stamp per cell marking it as seen in the current solve, so the arrays are
+// allocated once per grid size and never cleared between solves
+abstract class AMazeSolver implements MazeSolver {
+  int[] parent;
+  int[] seen;
+  int round;
+  int explored;
+
+  // EFFECT: readies the arrays for a new solve on the supplied cells
+  void start(WallCells grid) {
+    if (this.parent == null || this.parent.length != grid.cellCount()) {
+      this.parent = new int[grid.cellCount()];
+      this.seen = new int[grid.cellCount()];
+      this.round = 0;
+    }
+    this.round = this.round + 1;
+    this.explored = 0;
+  }
+
+  // how many cells the last solve explored
+  public int explored() {
+    return this.explored;
+  }
+
+  // determines if the supplied cell has been reached in this solve
+  boolean isSeen(int cell) {
+    return this.seen[cell] == this.round;
+  }
+
+  // EFFECT: marks the cell reached in this solve, from the given parent
+  void reach(int cell, int from) {
+    this.seen[cell] = this.round;
+    this.parent[cell] = from;
+  }
+
+  // the cells from the start of the search to the supplied cell, found by
+  // following parent pointers back from it
+  int[] pathTo(int cell) {
+    int length = 1;
+    for (int at = cell; this.parent[at] != at; at = this.parent[at]) {
+      length = length + 1;
+    }
+    int[] path = new int[length];
+    int at = cell;
+    for (int i = length - 1; i >= 0; i--) {
+      path[i] = at;
+      at = this.parent[at];
+    }
+    return path;
+  }
+}
+
+// plain breadth-first search from the start, recording parents so it returns
+// the path and not just the cells it visited; the baseline for the others
+class BfsSolver extends AMazeSolver {
+  int[] queue;
+
+  // the cells of the shortest path from one cell to the other, both ends
+  // included, or an empty array if they aren't connected
+  public int[] solve(MazeWalls maze, int from, int to) {
+    WallCells grid = new WallCells(maze);
+    this.start(grid);
+    if (this.queue == null || this.queue.length != grid.cellCount()) {
+      this.queue = new int[grid.cellCount()];
+    }
+    this.reach(from, from);
+    this.queue[0] = from;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int cell = this.queue[head];
+      head = head + 1;
+      this.explored = this.explored + 1;
+      if (cell == to) {
+        return this.pathTo(to);
+      }
+      for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+        if (grid.hasPassage(cell, side) && !this.isSeen(grid.neighbor(cell, side))) {
+          this.reach(grid.neighbor(cell, side), cell);
+          this.queue[tail] = grid.neighbor(cell, side);
+          tail = tail + 1;
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  // the name of this search
+  public String name() {
+    return "bfs";
+  }
+}
+
+// A* search: explores cells in order of the steps taken to reach them plus the
+// Manhattan distance left to the goal, which never overestimates in a grid, so
+// the first time the goal comes off the heap its path is a shortest one
+class AStarSolver extends AMazeSolver {
+  int[] cost;
+  IntMinHeap open;
+
+  // a solver with no arrays yet
+  AStarSolver() {
+    this.open = new IntMinHeap(64);
+  }
+
+  // the cells of the shortest path from one cell to the other, both ends
+  // included, or an empty array if they aren't connected
+  public int[] solve(MazeWalls maze, int from, int to) {
+    WallCells grid = new WallCells(maze);
+    this.start(grid);
+    if (this.cost == null || this.cost.length != grid.cellCount()) {
+      this.cost = new int[grid.cellCount()];
+    }
+    this.open.size = 0;
+    this.reach(from, from);
+    this.cost[from] = 0;
+    this.open.push(this.distance(grid, from, to), from);
+    while (this.open.size > 0) {
+      int key = this.open.peekKey();
+      int cell = this.open.pop();
+      // skips entries left behind when a cheaper way to the cell was found
+      if (key != this.cost[cell] + this.distance(grid, cell, to)) {
+        continue;
+      }
+      this.explored = this.explored + 1;
+      if (cell == to) {
+        return this.pathTo(to);
+      }
+      for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+        if (grid.hasPassage(cell, side)) {
+          int next = grid.neighbor(cell, side);
+          if (!this.isSeen(next) || this.cost[cell] + 1 < this.cost[next]) {
+            this.reach(next, cell);
+            this.cost[next] = this.cost[cell] + 1;
+            this.open.push(this.cost[next] + this.distance(grid, next, to), next);
+          }
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  // the Manhattan distance between the two cells
+  int distance(WallCells grid, int from, int to) {
+    return Math.abs(grid.xOf(from) - grid.xOf(to)) + Math.abs(grid.yOf(from) - grid.yOf(to));
+  }
+
+  // the name of this search
+  public String name() {
+    return "astar";
+  }
+}
+
+// breadth-first search from both ends at once, a whole level of the smaller
+// frontier at a time, stopping where the two meet. In a maze it explores about
+// two searches of half the depth instead of one of the full depth
+class BidirectionalBfsSolver extends AMazeSolver {
+  // which end reached each seen cell: the start or the goal
+  boolean[] fromStart;
+  int[] forward;
+  int[] backward;
+  int[] next;
+
+  // the cells of the shortest path from one cell to the other, both ends
+  // included, or an empty array if they aren't connected
+  public int[] solve(MazeWalls maze, int from, int to) {
+    WallCells grid = new WallCells(maze);
+    this.start(grid);
+    if (this.forward == null || this.forward.length != grid.cellCount()) {
+      this.fromStart = new boolean[grid.cellCount()];
+      this.forward = new int[grid.cellCount()];
+      this.backward = new int[grid.cellCount()];
+      this.next = new int[grid.cellCount()];
+    }
+    this.reach(from, from);
+    this.fromStart[from] = true;
+    if (from == to) {
+      this.explored = 1;
+      return new int[] {from};
+    }
+    this.reach(to, to);
+    this.fromStart[to] = false;
+    this.forward[0] = from;
+    this.backward[0] = to;
+    int forwardSize = 1;
+    int backwardSize = 1;
+    while (forwardSize > 0 && backwardSize > 0) {
+      boolean expandStart = forwardSize <= backwardSize;
+      int[] frontier = this.backward;
+      int size = backwardSize;
+      if (expandStart) {
+        frontier = this.forward;
+        size = forwardSize;
+      }
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        int cell = frontier[i];
+        this.explored = this.explored + 1;
+        for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+          if (grid.hasPassage(cell, side)) {
+            int neighbor = grid.neighbor(cell, side);
+            if (!this.isSeen(neighbor)) {
+              this.reach(neighbor, cell);
+              this.fromStart[neighbor] = expandStart;
+              this.next[count] = neighbor;
+              count = count + 1;
+            }
+            else if (this.fromStart[neighbor] != expandStart) {
+              // the searches met across this passage
+              if (expandStart) {
+                return this.join(cell, neighbor);
+              }
+              else {
+                return this.join(neighbor, cell);
+              }
+            }
+          }
+        }
+      }
+      // the new level becomes the frontier, and the old one holds the level after
+      int[] level = this.next;
+      this.next = frontier;
+      if (expandStart) {
+        this.forward = level;
+        forwardSize = count;
+      }
+      else {
+        this.backward = level;
+        backwardSize = count;
+      }
+    }
+    return new int[0];
+  }
+
+  // the path through the passage where the searches met, from the cell the
+  // start's search reached to the one the goal's search reached. The first
+  // meeting is a shortest path, since both searches go a whole level at a time
+  int[] join(int startSide, int goalSide) {
+    int[] head = this.pathTo(startSide);
+    int tail = 1;
+    for (int at = goalSide; this.parent[at] != at; at = this.parent[at]) {
+      tail = tail + 1;
+    }
+    int[] path = Arrays.copyOf(head, head.length + tail);
+    int at = goalSide;
+    for (int i = head.length; i < path.length; i++) {
+      path[i] = at;
+      at = this.parent[at];
+    }
+    return path;
+  }
+
+  // the name of this search
+  public String name() {
+    return "bidirectional";
+  }
+}
+
+// breadth-first search that expands each level of the frontier across a
+// fork-join pool. Cells are claimed with a compare-and-set on an atomic bitset,
+// so each is reached by exactly one thread, which then owns its parent pointer;
+// the frontiers are plain int arrays, and each task gathers what it reaches in
+// its thread's scratch buffer, reused for every level and solve, then copies it
+// into the next frontier with a single atomic add. Levels too narrow to be worth
+// splitting run on the calling thread, and a perfect maze's levels are often
+// narrow, so the gain depends on how bushy the maze is.
+// run with: java MazeBenchmarks bfs [xCells ...] to compare it with the
+// sequential searches, at every thread count
+class ParallelBfsSolver implements MazeSolver {
+  // the fewest frontier cells worth handing to another thread
+  static final int GRAIN = 2048;
+
+  ForkJoinPool pool;
+  WallCells grid;
+  int to;
+  AtomicLongArray visited;
+  int[] parent;
+  int[] frontier;
+  int[] next;
+  AtomicInteger nextSize;
+  ScratchBuffers scratch;
+  volatile boolean found;
+  int explored;
+
+  // a solver that splits levels over the supplied pool
+  ParallelBfsSolver(ForkJoinPool pool) {
+    this.pool = pool;
+    this.nextSize = new AtomicInteger();
+    // a range expanded at once has fewer than 2 * GRAIN cells, each with at
+    // most four neighbours
+    this.scratch = new ScratchBuffers(8 * GRAIN);
+  }
+
+  // the cells of the shortest path from one cell to the other, both ends
+  // included, or an empty array if they aren't connected
+  public int[] solve(MazeWalls maze, int from, int to) {
+    WallCells grid = new WallCells(maze);
+    int count = grid.cellCount();
+    if (this.parent == null || this.parent.length != count) {
+      this.parent = new int[count];
+      this.frontier = new int[count];
+      this.next = new int[count];
+      this.visited = new AtomicLongArray((count + 63) / 64);
+    }
+    else {
+      for (int word = 0; word < this.visited.length(); word++) {
+        this.visited.set(word, 0);
+      }
+    }
+    this.grid = grid;
+    this.to = to;
+    this.found = from == to;
+    this.explored = 0;
+    this.claim(from);
+    this.parent[from] = from;
+    this.frontier[0] = from;
+    int size = 1;
+    while (size > 0 && !this.found) {
+      this.explored = this.explored + size;
+      this.nextSize.set(0);
+      if (size < 2 * GRAIN) {
+        this.expand(0, size);
+      }
+      else {
+        this.pool.invoke(new BfsLevelTask(this, 0, size));
+      }
+      int[] level = this.next;
+      this.next = this.frontier;
+      this.frontier = level;
+      size = this.nextSize.get();
+    }
+    if (!this.found) {
+      return new int[0];
+    }
+    return this.pathTo(to);
+  }
+
+  // EFFECT: claims the cell as visited, and returns whether this call was the
+  // one that claimed it
+  boolean claim(int cell) {
+    int word = cell / 64;
+    long bit = 1L << (cell % 64);
+    while (true) {
+      long old = this.visited.get(word);
+      if ((old & bit) != 0) {
+        return false;
+      }
+      if (this.visited.compareAndSet(word, old, old | bit)) {
+        return true;
+      }
+    }
+  }
+
+  // EFFECT: expands the frontier cells in [lo, hi), adding the cells they reach
+  // first to the next frontier
+  void expand(int lo, int hi) {
+    int[] reached = this.scratch.get();
+    int count = 0;
+    for (int i = lo; i < hi; i++) {
+      int cell = this.frontier[i];
+      for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+        if (this.grid.hasPassage(cell, side)) {
+          int neighbor = this.grid.neighbor(cell, side);
+          if (this.claim(neighbor)) {
+            this.parent[neighbor] = cell;
+            reached[count] = neighbor;
+            count = count + 1;
+            if (neighbor == this.to) {
+              this.found = true;
+            }
+          }
+        }
+      }
+    }
+    int first = this.nextSize.getAndAdd(count);
+    System.arraycopy(reached, 0, this.next, first, count);
+  }
+
+  // the cells from the start of the search to the supplied cell
+  int[] pathTo(int cell) {
+    int length = 1;
+    for (int at = cell; this.parent[at] != at; at = this.parent[at]) {
+      length = length + 1;
+    }
+    int[] path = new int[length];
+    int at = cell;
+    for (int i = length - 1; i >= 0; i--) {
+      path[i] = at;
+      at = this.parent[at];
+    }
+    return path;
+  }
+
+  // how many cells the last solve explored
+  public int explored() {
+    return this.explored;
+  }
+
+  // the name of this search
+  public String name() {
+    return "parallel-bfs";
+  }
+}
+
+// an int array of a fixed size for each thread that asks, made the first time
+// it asks and handed back every time after
+class ScratchBuffers extends ThreadLocal<int[]> {
+  int size;
+
+  // buffers of the given number of ints
+  ScratchBuffers(int size) {
+    this.size = size;
+  }
+
+  // a new buffer, for a thread asking for the first time
+  protected int[] initialValue() {
+    return new int[this.size];
+  }
+}
+
+// expands one range of a ParallelBfsSolver's frontier, splitting it in halves
+// until the pieces are small enough to do directly
+class BfsLevelTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  ParallelBfsSolver solver;
+  int lo;
+  int hi;
+
+  // a task for the frontier cells in [lo, hi)
+  BfsLevelTask(ParallelBfsSolver solver, int lo, int hi) {
+    this.solver = solver;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  // EFFECT: expands the range, in parallel halves if it is big enough
+  protected void compute() {
+    if (this.hi - this.lo <= ParallelBfsSolver.GRAIN) {
+      this.solver.expand(this.lo, this.hi);
+    }
+    else {
+      int mid = (this.lo + this.hi) / 2;
+      invokeAll(new BfsLevelTask(this.solver, this.lo, mid),
+          new BfsLevelTask(this.solver, mid, this.hi));
+    }
+  }
+}
+
+// an index over a perfect maze, which is a tree, so every pair of cells has
+// exactly one path between them. One pass from the first cell records each
+// cell's parent and depth, and a jump pointer that skips up the tree in steps
+// of growing size, so that the lowest common ancestor of two cells, and with it
+// their distance, takes O(log n) hops, and their path O(path length), without
+// searching. The jump pointers play the part of binary-lifting tables in a
+// single int per cell.
+class MazeIndex {
+  int root;
+  int[] parent;
+  int[] depth;
+  int[] jump;
+
+  // indexes the supplied perfect maze from its first cell
+  MazeIndex(MazeWalls maze) {
+    this(maze, 0);
+  }
+
+  // indexes the supplied perfect maze from the given root cell, and throws if
+  // the maze has a loop or a cell it can't reach
+  MazeIndex(MazeWalls maze, int root) {
+    WallCells grid = new WallCells(maze);
+    int count = grid.cellCount();
+    this.root = root;
+    this.parent = new int[count];
+    this.depth = new int[count];
+    this.jump = new int[count];
+    Arrays.fill(this.parent, -1);
+    this.parent[root] = root;
+    this.jump[root] = root;
+    // breadth-first, so every parent is done before its children
+    int[] queue = new int[count];
+    queue[0] = root;
+    int tail = 1;
+    for (int head = 0; head < tail; head++) {
+      int cell = queue[head];
+      for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+        if (grid.hasPassage(cell, side)) {
+          int child = grid.neighbor(cell, side);
+          if (child == this.parent[cell]) {
+            continue;
+          }
+          if (this.parent[child] != -1) {
+            throw new IllegalArgumentException("not a perfect maze: it has a loop at " + child);
+          }
+          this.parent[child] = cell;
+          this.depth[child] = this.depth[cell] + 1;
+          this.jump[child] = this.jumpFor(cell);
+          queue[tail] = child;
+          tail = tail + 1;
+        }
+      }
+    }
+    if (tail != count) {
+      throw new IllegalArgumentException("not a perfect maze: " + (count - tail)
+          + " cells can't be reached");
+    }
+  }
+
+  // the jump pointer of a child of the supplied cell: twice as far as the
+  // cell's own jump when the cell's jump and its jump's jump are the same
+  // length, and just the cell itself otherwise
+  int jumpFor(int cell) {
+    int up = this.jump[cell];
+    if (this.depth[cell] - this.depth[up] == this.depth[up] - this.depth[this.jump[up]]) {
+      return this.jump[up];
+    }
+    else {
+      return cell;
+    }
+  }
+
+  // the ancestor of the supplied cell at the given depth
+  int ancestorAt(int cell, int depth) {
+    while (this.depth[cell] > depth) {
+      if (this.depth[this.jump[cell]] >= depth) {
+        cell = this.jump[cell];
+      }
+      else {
+        cell = this.parent[cell];
+      }
+    }
+    return cell;
+  }
+
+  // the deepest cell that both cells descend from, where their path turns
+  int commonAncestor(int a, int b) {
+    if (this.depth[a] > this.depth[b]) {
+      a = this.ancestorAt(a, this.depth[b]);
+    }
+    else {
+      b = this.ancestorAt(b, this.depth[a]);
+    }
+    // cells at the same depth have jumps of the same length
+    while (a != b) {
+      if (this.jump[a] != this.jump[b]) {
+        a = this.jump[a];
+        b = this.jump[b];
+      }
+      else {
+        a = this.parent[a];
+        b = this.parent[b];
+      }
+    }
+    return a;
+  }
+
+  // the number of steps on the path between the two cells
+  int distance(int from, int to) {
+    return this.depth[from] + this.depth[to] - (2 * this.depth[this.commonAncestor(from, to)]);
+  }
+
+  // the cells of the path from one cell to the other, both ends included
+  int[] path(int from, int to) {
+    int turn = this.commonAncestor(from, to);
+    int[] path = new int[this.depth[from] + this.depth[to] - (2 * this.depth[turn]) + 1];
+    int i = 0;
+    for (int cell = from; cell != turn; cell = this.parent[cell]) {
+      path[i] = cell;
+      i = i + 1;
+    }
+    int j = path.length - 1;
+    for (int cell = to; cell != turn; cell = this.parent[cell]) {
+      path[j] = cell;
+      j = j - 1;
+    }
+    path[i] = turn;
+    return path;
+  }
+
+  // the cell one step along the path from one cell towards the other, or the
+  // cell itself if they are the same
+  int nextStep(int from, int to) {
+    if (from == to) {
+      return from;
+    }
+    else if (this.commonAncestor(from, to) == from) {
+      return this.ancestorAt(to, this.depth[from] + 1);
+    }
+    else {
+      return this.parent[from];
+    }
+  }
+
+  // determines if the two cells are next to each other with a passage between
+  boolean adjacent(int a, int b) {
+    return this.parent[a] == b || this.parent[b] == a;
+  }
+
+  // determines if the route walks through passages from one cell to the other
+  boolean isRoute(int[] route, int from, int to) {
+    if (route.length == 0 || route[0] != from || route[route.length - 1] != to) {
+      return false;
+    }
+    for (int i = 1; i < route.length; i++) {
+      if (!this.adjacent(route[i - 1], route[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // determines if the route is the path from its first cell to its last
+  boolean isShortestRoute(int[] route) {
+    return route.length > 0 && this.isRoute(route, route[0], route[route.length - 1])
+        && route.length == this.distance(route[0], route[route.length - 1]) + 1;
+  }
+}
+
+// a histogram of latencies in nanoseconds. Buckets grow by powers of two with
+// four steps between each, so recording is a few shifts into a fixed array and
+// never allocates, and a percentile read from the buckets is at most a
+// quarter above the true value
+class LatencyHistogram {
+  static final int STEPS = 4;
+
+  long[] buckets;
+  long count;
+  long total;
+  long max;
+
+  // an empty histogram
+  LatencyHistogram() {
+    this.buckets = new long[64 * STEPS];
+  }
+
+  // EFFECT: counts one latency of the given nanoseconds
+  void record(long nanos) {
+    long value = Math.max(0, nanos);
+    int bucket = this.bucketOf(value);
+    this.buckets[bucket] = this.buckets[bucket] + 1;
+    this.count = this.count + 1;
+    this.total = this.total + value;
+    this.max = Math.max(this.max, value);
+  }
+
+  // the bucket that counts the given nanoseconds: exact below 4, and otherwise
+  // the power of two it falls in and which quarter of it
+  int bucketOf(long nanos) {
+    if (nanos < STEPS) {
+      return (int) nanos;
+    }
+    int power = 63 - Long.numberOfLeadingZeros(nanos);
+    return (power * STEPS) + (int) ((nanos >> (power - 2)) & 3);
+  }
+
+  // the largest number of nanoseconds the given bucket counts
+  long upperBound(int bucket) {
+    if (bucket < STEPS) {
+      return bucket;
+    }
+    int power = bucket / STEPS;
+    return ((long) (STEPS + (bucket % STEPS) + 1) << (power - 2)) - 1;
+  }
+
+  // the latency that the given fraction of the recorded ones are at or below
+  long percentile(double fraction) {
+    long rank = Math.max(1, (long) Math.ceil(fraction * this.count));
+    long seen = 0;
+    for (int bucket = 0; bucket < this.buckets.length; bucket++) {
+      seen = seen + this.buckets[bucket];
+      if (seen >= rank) {
+        return Math.min(this.upperBound(bucket), this.max);
+      }
+    }
+    return this.max;
+  }
+
+  // the mean latency in nanoseconds
+  double mean() {
+    if (this.count == 0) {
+      return 0;
+    }
+    return (double) this.total / this.count;
+  }
+
+  // a one-line summary in milliseconds, under the given label
+  String summary(String label) {
+    return String.format("%-6s n=%-7d p50 %7.3f  p99 %7.3f  max %7.3f ms", label, this.count,
+        this.percentile(0.5) / 1e6, this.percentile(0.99) / 1e6, this.max / 1e6);
+  }
+}
+
+// where a MazeWorld's time goes: latency histograms of its ticks, key events,
+// frames and the maze drawing within them, and counters of the work they did,
+// shown as an overlay on the scene while the "p" key has it switched on
+class PerfStats {
+  LatencyHistogram tick;
+  LatencyHistogram key;
+  LatencyHistogram scene;
+  LatencyHistogram draw;
+  // the generator steps taken, each an edge tried for Kruskal
+  long edgesProcessed;
+  // the cells the solver searches visited
+  long cellsVisited;
+  // the images makeScene created
+  long imagesAllocated;
+  boolean overlay;
+
+  // empty statistics, with the overlay off
+  PerfStats() {
+    this.tick = new LatencyHistogram();
+    this.key = new LatencyHistogram();
+    this.scene = new LatencyHistogram();
+    this.draw = new LatencyHistogram();
+  }
+
+  // the lines of the overlay
+  String[] lines() {
+    return new String[] {this.tick.summary("tick"), this.key.summary("key"),
+        this.scene.summary("frame"), this.draw.summary("draw"),
+        String.format("edges %d  cells %d  images %d", this.edgesProcessed, this.cellsVisited,
+            this.imagesAllocated)};
+  }
+}
+
+// a JFR event for a batch of maze generation: a tick's worth of steps, or the
+// rest of the maze carved at once
+@Name("maze.Generation")
+@Label("Maze Generation")
+@Category("Maze")
+class GenerationEvent extends Event {
+  // the registered type, to ask whether any recording wants these events
+  static final EventType TYPE = EventType.getEventType(GenerationEvent.class);
+
+  @Label("Algorithm")
+  String algorithm;
+
+  @Label("Cells")
+  int cells;
+
+  @Label("Steps")
+  int steps;
+
+  @Label("Finished At Once")
+  boolean finished;
+}
+
+// a JFR event for a solver search run by one of the game modes
+@Name("maze.Solve")
+@Label("Maze Solve")
+@Category("Maze")
+class SolveEvent extends Event {
+  @Label("Mode")
+  String mode;
+
+  @Label("Cells")
+  int cells;
+
+  @Label("Cells Visited")
+  int visited;
+}
+
+// a new maze built away from the game's thread: the grid, carved all at once or
+// just begun so the game can animate the rest, and the renderer for it. The
+// game swaps it in whole once it is ready, so a frame never sees half of it
+class PreparedMaze implements Supplier<PreparedMaze> {
+  MazeGenerator generator;
+  long seed;
+  Viewport view;
+  boolean finish;
+  MazeGrid grid;
+  MazeRenderer renderer;
+  // the steps carved so far and whether it is all built, read by the game's
+  // thread to show progress
+  volatile int steps;
+  volatile boolean ready;
+  // set by the game's thread when a newer reset replaces this one
+  volatile boolean abandoned;
+
+  // a maze the size of the given view's, to be shown through a copy of it, and
+  // carved by the given unstarted generator from the given seed, all at once
+  // when finish is set
+  PreparedMaze(MazeGenerator generator, long seed, Viewport view, boolean finish) {
+    this.generator = generator;
+    this.seed = seed;
+    this.view = view;
+    this.finish = finish;
+  }
+
+  // builds the maze and returns this
+  // EFFECT: creates the grid and renderer, and carves the grid unless it is
+  // abandoned first
+  public PreparedMaze get() {
+    this.grid = new MazeGrid(this.view.mazeColumns, this.view.mazeRows);
+    this.renderer = new MazeRenderer(this.grid, this.view.copy());
+    this.generator.begin(this.grid, new SplittableRandom(this.seed));
+    if (this.finish) {
+      GenerationEvent event = new GenerationEvent();
+      event.begin();
+      int batch = Math.max(1, this.generator.estimatedSteps() / 100);
+      while (!this.generator.isDone() && !this.abandoned) {
+        this.steps = this.steps + this.generator.stepFor(batch, Long.MAX_VALUE);
+      }
+      if (event.shouldCommit()) {
+        event.algorithm = this.generator.name();
+        event.cells = this.grid.cellCount();
+        event.steps = this.steps;
+        event.finished = true;
+        event.commit();
+      }
+    }
+    this.grid.paint(0, Palette.START);
+    this.grid.paint(this.grid.cellCount() - 1, Palette.GOAL);
+    this.ready = true;
+    return this;
+  }
+
+  // about how much of the maze is carved, as a percentage; generators may take
+  // more or fewer steps than they estimate, so only a ready maze shows 100
+  int percentDone() {
+    if (this.ready) {
+      return 100;
+    }
+    return (int) Math.min(99, this.steps * 100L / Math.max(1, this.generator.estimatedSteps()));
+  }
+}
+
+// a bounded stock of ready mazes of one size and algorithm, so a reset can take
+// one at once instead of waiting for it to be built. Worker threads fill it up
+// front, and build a replacement each time a maze is taken
+class MazePool {
+  Viewport view;
+  String algorithm;
+  boolean finish;
+  int size;
+  int parallelism;
+  SplittableRandom seeds;
+  ArrayBlockingQueue<PreparedMaze> ready;
+  // the mazes the workers are building right now
+  Set<PreparedMaze> building;
+  ExecutorService workers;
+  // the takes that found a maze ready, and the ones that didn't
+  AtomicLong hits;
+  AtomicLong misses;
+  volatile boolean closed;
+
+  // a pool of size mazes the size of the given view's, shown through copies of
+  // it and carved by the named algorithm (all at once when finish is set) from
+  // seeds drawn from the given one, built by the given number of worker threads
+  MazePool(Viewport view, String algorithm, boolean finish, long seed, int size,
+      int parallelism) {
+    if (size < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("a maze pool needs a size and parallelism of at least 1");
+    }
+    this.view = view;
+    this.algorithm = algorithm;
+    this.finish = finish;
+    this.size = size;
+    this.parallelism = parallelism;
+    this.seeds = new SplittableRandom(seed);
+    this.ready = new ArrayBlockingQueue<PreparedMaze>(size);
+    this.building = ConcurrentHashMap.newKeySet();
+    this.workers = Executors.newFixedThreadPool(parallelism, new BuilderThreads());
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    for (int i = 0; i < size; i++) {
+      this.refill();
+    }
+  }
+
+  // EFFECT: has a worker build one more maze into the pool
+  void refill() {
+    this.workers.execute(new PoolRefill(this, new PreparedMaze(
+        new MazeGenerators().named(this.algorithm), this.seeds.nextLong(), this.view,
+        this.finish)));
+  }
+
+  // a ready maze from the pool, or null if none is ready yet
+  // EFFECT: counts the hit or miss, and starts a replacement for a maze taken
+  PreparedMaze take() {
+    PreparedMaze maze = this.ready.poll();
+    if (maze == null) {
+      this.misses.incrementAndGet();
+    }
+    else {
+      this.hits.incrementAndGet();
+      this.refill();
+    }
+    return maze;
+  }
+
+  // determines if this pool builds mazes of the given size and algorithm
+  boolean builds(int width, int height, String algorithm) {
+    return this.view.mazeColumns == width && this.view.mazeRows == height
+        && this.algorithm.equals(algorithm);
+  }
+
+  // EFFECT: stops building mazes, abandoning the ones being built, and drops
+  // the ones ready
+  void close() {
+    this.closed = true;
+    // a maze's builder only looks at abandoned, so interrupting it isn't enough
+    for (PreparedMaze maze : this.building) {
+      maze.abandoned = true;
+    }
+    this.workers.shutdownNow();
+    this.ready.clear();
+  }
+}
+
+// one maze a MazePool's worker builds and adds to the pool
+class PoolRefill implements Runnable {
+  MazePool pool;
+  PreparedMaze maze;
+
+  // the given maze, to be built for the given pool
+  PoolRefill(MazePool pool, PreparedMaze maze) {
+    this.pool = pool;
+    this.maze = maze;
+  }
+
+  // EFFECT: builds the maze and adds it to the pool, unless the pool is closed
+  public void run() {
+    // listed before closed is checked, so a close either stops this run here or
+    // finds the maze to abandon
+    this.pool.building.add(this.maze);
+    if (!this.pool.closed) {
+      this.maze.get();
+      if (!this.pool.closed) {
+        this.pool.ready.offer(this.maze);
+      }
+    }
+    this.pool.building.remove(this.maze);
+  }
+}
+
+// makes the daemon threads that build mazes in the background, so a builder
+// left running never keeps the game from exiting
+class BuilderThreads implements ThreadFactory {
+  // a new daemon thread running the given task
+  public Thread newThread(Runnable task) {
+    Thread thread = new Thread(task, "maze-builder");
+    thread.setDaemon(true);
+    return thread;
+  }
+}
+
+// ArrayUtils Class
+class ArrayUtils {
+  // EFFECT: Sorts the given ArrayList according to the given comparator
+  <T> void quicksort(ArrayList<T> arr, Comparator<T> comp) {
+    quicksortHelp(arr, comp, 0, arr.size());
+  }
+
+  // EFFECT: sorts the source array according to comp, in the range of indices
+  // [loIdx, hiIdx)
+  <T> void quicksortHelp(ArrayList<T> source, Comparator<T> comp, int loIdx, int hiIdx) {
+    // Step 0: check for completion
+    if (loIdx >= hiIdx) {
+      return; // There are no items to sort
+    }
+    // Step 1: select pivot
+    T pivot = source.get(loIdx);
+    // Step 2: partition items to lower or upper portions of the temp list
+    int pivotIdx = partition(source, comp, loIdx, hiIdx, pivot);
+    // Step 3: sort both halves of the list
+    quicksortHelp(source, comp, loIdx, pivotIdx);
+    quicksortHelp(source, comp, pivotIdx + 1, hiIdx);
+  }
+
+  // Returns the index where the pivot element ultimately ends up in the sorted
+  // source
+  // EFFECT: Modifies the source list in the range [loIdx, hiIdx) such that
+  // all values to the left of the pivot are less than (or equal to) the pivot
+  // and all values to the right of the pivot are greater than it
+  <T> int partition(ArrayList<T> source, Comparator<T> comp, int loIdx, int hiIdx, T pivot) {
+    int curLo = loIdx;
+    int curHi = hiIdx - 1;
+    while (curLo < curHi) {
+      // Advance curLo until we find a too-big value (or overshoot the end of the
+      // list)
+      while (curLo < hiIdx && comp.compare(source.get(curLo), pivot) <= 0) {
+        curLo = curLo + 1;
+      }
+      // Advance curHi until we find a too-small value (or undershoot the start of the
+      // list)
+      while (curHi >= loIdx && comp.compare(source.get(curHi), pivot) > 0) {
+        curHi = curHi - 1;
+      }
+      if (curLo < curHi) {
+        swap(source, curLo, curHi);
+      }
+    }
+    swap(source, loIdx, curHi); // place the pivot in the remaining spot
+    return curHi;
+  }
+
+  // the items placed at the index of their weight, where the weights are a
+  // permutation of 0..n-1 (weights[i] is the weight of items[i])
+  int[] orderByPermutation(int[] items, int[] weights) {
+    int[] ordered = new int[items.length];
+    for (int i = 0; i < items.length; i++) {
+      ordered[weights[i]] = items[i];
+    }
+    return ordered;
+  }
+
+  // the items in order of their non-negative weights (weights[i] is the weight of
+  // items[i]), sorted by a stable least-significant-digit radix sort on bytes
+  int[] radixSort(int[] items, int[] weights) {
+    int[] curItems = Arrays.copyOf(items, items.length);
+    int[] curWeights = Arrays.copyOf(weights, weights.length);
+    int[] nextItems = new int[items.length];
+    int[] nextWeights = new int[weights.length];
+    int max = 0;
+    for (int w : weights) {
+      max = Math.max(max, w);
+    }
+    for (int shift = 0; shift < 32 && (max >>> shift) > 0; shift = shift + 8) {
+      // counts how many weights have each digit, then turns the counts into the
+      // index where the first item with that digit goes
+      int[] starts = new int[257];
+      for (int w : curWeights) {
+        starts[((w >>> shift) & 0xFF) + 1]++;
+      }
+      for (int d = 0; d < 256; d++) {
+        starts[d + 1] = starts[d + 1] + starts[d];
+      }
+      for (int i = 0; i < curItems.length; i++) {
+        int d = (curWeights[i] >>> shift) & 0xFF;
+        nextItems[starts[d]] = curItems[i];
+        nextWeights[starts[d]] = curWeights[i];
+        starts[d]++;
+      }
+      int[] tempItems = curItems;
+      curItems = nextItems;
+      nextItems = tempItems;
+      int[] tempWeights = curWeights;
+      curWeights = nextWeights;
+      nextWeights = tempWeights;
+    }
+    return curItems;
+  }
+
+  // EFFECT: puts the given array into a uniformly random order (Fisher-Yates)
+  void shuffle(int[] arr, SplittableRandom rand) {
+    for (int i = arr.length - 1; i > 0; i--) {
+      int j = rand.nextInt(i + 1);
+      int temp = arr[i];
+      arr[i] = arr[j];
+      arr[j] = temp;
+    }
+  }
+
+  // EFFECT: swaps the two supplied indexes
+  <T> void swap(ArrayList<T> source, int loIdx, int curHi) {
     T hi = source.get(curHi);
     T lo = source.get(loIdx);
     source.set(curHi, lo);
@@ -628,13 +3976,945 @@ class ArrayUtils {
   }
 }
 
+// generates batches of mazes without javalib or a window, reusing the same
+// MazeGrid and KruskalGenerator as the game, and reports the throughput.
+// run with: java MazeBatch <xCells> <yCells> <count> [seed] [threads] [algorithm]
+// without threads, one maze is generated for each seed from seed on; with threads,
+// the mazes are generated in parallel from generators split off the seed
+class MazeBatch {
+  int xCells;
+  int yCells;
+  String algorithm;
+
+  // constructor taking the size of every maze in the batch, generated by Kruskal
+  MazeBatch(int xCells, int yCells) {
+    this(xCells, yCells, "kruskal");
+  }
+
+  // constructor taking the size of every maze and the name of their generator
+  MazeBatch(int xCells, int yCells, String algorithm) {
+    this.xCells = xCells;
+    this.yCells = yCells;
+    this.algorithm = algorithm;
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 3) {
+      System.err.println(
+          "usage: java MazeBatch <xCells> <yCells> <count> [seed] [threads] [algorithm]");
+      return;
+    }
+    long seed = 0;
+    if (args.length > 3) {
+      seed = Long.parseLong(args[3]);
+    }
+    String algorithm = "kruskal";
+    if (args.length > 5) {
+      algorithm = args[5];
+    }
+    MazeBatch batch = new MazeBatch(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+        algorithm);
+    if (args.length > 4 && !args[4].equals("0")) {
+      System.out.println(batch.runParallel(seed, Integer.parseInt(args[2]),
+          Integer.parseInt(args[4])));
+    }
+    else {
+      System.out.println(batch.run(seed, Integer.parseInt(args[2])));
+    }
+  }
+
+  // generates the complete maze for the given seed
+  MazeGrid generate(long seed) {
+    return this.generate(new SplittableRandom(seed));
+  }
+
+  // generates a complete maze from the given random generator
+  MazeGrid generate(SplittableRandom rand) {
+    MazeGrid grid = new MazeGrid(this.xCells, this.yCells);
+    MazeGenerator generator = new MazeGenerators().named(this.algorithm);
+    generator.begin(grid, rand);
+    generator.finish();
+    return grid;
+  }
+
+  // generates count mazes on a pool of the given number of threads, and reports
+  // how long that took and how much it allocated. Maze i always comes from the
+  // i-th generator split off the master seed, so the batch (and its checksum) is
+  // the same whatever the number of threads
+  BatchReport runParallel(long masterSeed, int count, int threads) {
+    SplittableRandom master = new SplittableRandom(masterSeed);
+    SplittableRandom[] rands = new SplittableRandom[count];
+    for (int i = 0; i < count; i++) {
+      rands[i] = master.split();
+    }
+    long[] fingerprints = new long[count];
+    AtomicLong bytes = new AtomicLong();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    long start = System.nanoTime();
+    try {
+      pool.invoke(new BatchTask(this, rands, fingerprints, bytes, 0, count));
+    }
+    finally {
+      pool.shutdown();
+    }
+    long nanos = System.nanoTime() - start;
+    long checksum = 0;
+    for (long fingerprint : fingerprints) {
+      checksum = (checksum * 31) + fingerprint;
+    }
+    return new BatchReport(count, (long) count * this.xCells * this.yCells, nanos, bytes.get(),
+        checksum);
+  }
+
+  // generates one maze for each seed in firstSeed..firstSeed+count-1, and reports
+  // how long that took and how much it allocated
+  BatchReport run(long firstSeed, int count) {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long checksum = 0;
+    long startBytes = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      checksum = (checksum * 31) + new MazeFingerprint().of(this.generate(firstSeed + i));
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+    return new BatchReport(count, (long) count * this.xCells * this.yCells, nanos, bytes,
+        checksum);
+  }
+}
+
+// generates the mazes lo..hi-1 of a parallel batch, splitting the range in half
+// until it is small enough to run on one thread. Every maze has its own
+// generator, grid and union-find, so the tasks share nothing but their slots of
+// the fingerprints array
+class BatchTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  MazeBatch batch;
+  SplittableRandom[] rands;
+  long[] fingerprints;
+  AtomicLong bytes;
+  int lo;
+  int hi;
+
+  // constructor taking in all fields
+  BatchTask(MazeBatch batch, SplittableRandom[] rands, long[] fingerprints, AtomicLong bytes,
+      int lo, int hi) {
+    this.batch = batch;
+    this.rands = rands;
+    this.fingerprints = fingerprints;
+    this.bytes = bytes;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  // EFFECT: generates this task's mazes and records their fingerprints, and adds
+  // what it allocated to the batch's total
+  protected void compute() {
+    if (this.hi - this.lo > 1) {
+      int mid = (this.lo + this.hi) / 2;
+      invokeAll(new BatchTask(this.batch, this.rands, this.fingerprints, this.bytes, this.lo, mid),
+          new BatchTask(this.batch, this.rands, this.fingerprints, this.bytes, mid, this.hi));
+    }
+    else if (this.hi - this.lo == 1) {
+      ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      long startBytes = threads.getThreadAllocatedBytes(threadId);
+      MazeGrid grid = this.batch.generate(this.rands[this.lo]);
+      this.fingerprints[this.lo] = new MazeFingerprint().of(grid);
+      this.bytes.addAndGet(threads.getThreadAllocatedBytes(threadId) - startBytes);
+    }
+  }
+}
+
+// generates one huge maze in parallel: the grid is split into square tiles, each
+// tile is carved into its own spanning tree by Kruskal's algorithm on a pool of
+// threads, and the tiles are then joined by a filtered Kruskal over just the
+// edges between tiles: a window of them is filtered in parallel down to the ones
+// still joining separate tiles, those are unioned in order, and so on.
+// run with: java MazeBenchmarks generate- [xCells ...] to compare it with
+// Kruskal on one thread, at every thread count
+class TiledMazeGenerator {
+  MazeGrid grid;
+  int tileSize;
+  int tilesX;
+  int tilesY;
+  DisjointSet sets;
+  int carved;
+
+  // prepares to carve the supplied grid in tiles of the given size
+  TiledMazeGenerator(MazeGrid grid, int tileSize) {
+    this.grid = grid;
+    this.tileSize = tileSize;
+    this.tilesX = (grid.width + tileSize - 1) / tileSize;
+    this.tilesY = (grid.height + tileSize - 1) / tileSize;
+    this.sets = new DisjointSet(grid.cellCount());
+    this.carved = 0;
+  }
+
+  // EFFECT: carves the whole grid into a single spanning tree, using the given
+  // number of threads. Tile i always uses the i-th generator split off rand, so
+  // the maze is the same whatever the number of threads
+  void generate(SplittableRandom rand, int threads) {
+    int tiles = this.tilesX * this.tilesY;
+    SplittableRandom[] rands = new SplittableRandom[tiles];
+    for (int i = 0; i < tiles; i++) {
+      rands[i] = rand.split();
+    }
+    int[] carvedPerTile = new int[tiles];
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.invoke(new TileTask(this, rands, carvedPerTile, 0, tiles));
+      for (int count : carvedPerTile) {
+        this.carved = this.carved + count;
+      }
+      int[] boundary = this.boundaryEdges();
+      new ArrayUtils().shuffle(boundary, rand);
+      this.mergeTiles(boundary, pool);
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  // EFFECT: joins the tiles' trees by opening the boundary edges, in the given
+  // order, that connect tiles not yet connected. Each tile is already one tree,
+  // so the union-find is over tiles rather than cells. The edges are taken a
+  // window at a time: the window is first filtered in parallel down to the edges
+  // between tiles that weren't connected when it started, and only those are
+  // unioned one by one. An edge the filter drops is one Kruskal would skip
+  // anyway, so the maze is the same as a sequential pass would make
+  void mergeTiles(int[] boundary, ForkJoinPool pool) {
+    DisjointSet tiles = new DisjointSet(this.tilesX * this.tilesY);
+    int window = Math.max(SeamFilterTask.GRAIN, this.tilesX * this.tilesY);
+    int next = 0;
+    while (next < boundary.length && this.carved < this.grid.cellCount() - 1) {
+      int end = Math.min(boundary.length, next + window);
+      int kept = pool.invoke(new SeamFilterTask(this, tiles, boundary, next, end));
+      for (int i = next; i < next + kept; i++) {
+        int from = this.grid.edgeFrom(boundary[i]);
+        int to = this.grid.edgeTo(boundary[i]);
+        if (tiles.union(this.tileOf(from), this.tileOf(to))) {
+          this.grid.connect(from, to);
+          this.carved = this.carved + 1;
+        }
+      }
+      next = end;
+    }
+  }
+
+  // the tile the supplied cell is in
+  int tileOf(int cell) {
+    return ((this.grid.yOf(cell) / this.tileSize) * this.tilesX)
+        + (this.grid.xOf(cell) / this.tileSize);
+  }
+
+  // carves the given tile into a spanning tree of its cells, and returns the
+  // number of passages it opened
+  // EFFECT: only touches the cells of this tile, in the grid and in the sets, so
+  // different tiles can be carved at the same time
+  int carveTile(int tile, SplittableRandom rand) {
+    int[] edges = this.tileEdges(tile);
+    new ArrayUtils().shuffle(edges, rand);
+    int count = 0;
+    for (int edge : edges) {
+      int from = this.grid.edgeFrom(edge);
+      int to = this.grid.edgeTo(edge);
+      if (this.sets.union(from, to)) {
+        this.grid.connect(from, to);
+        count = count + 1;
+      }
+    }
+    return count;
+  }
+
+  // the ids of the edges with both cells inside the given tile
+  int[] tileEdges(int tile) {
+    int x0 = (tile % this.tilesX) * this.tileSize;
+    int y0 = (tile / this.tilesX) * this.tileSize;
+    int x1 = Math.min(this.grid.width, x0 + this.tileSize);
+    int y1 = Math.min(this.grid.height, y0 + this.tileSize);
+    int[] edges = new int[((x1 - x0 - 1) * (y1 - y0)) + ((x1 - x0) * (y1 - y0 - 1))];
+    int count = 0;
+    for (int y = y0; y < y1; y++) {
+      for (int x = x0; x < x1; x++) {
+        int cell = this.grid.cellAt(x, y);
+        if (x + 1 < x1) {
+          edges[count] = this.grid.edgeId(cell, MazeGrid.RIGHT);
+          count = count + 1;
+        }
+        if (y + 1 < y1) {
+          edges[count] = this.grid.edgeId(cell, MazeGrid.BOTTOM);
+          count = count + 1;
+        }
+      }
+    }
+    return edges;
+  }
+
+  // the ids of the edges that cross from one tile into the next
+  int[] boundaryEdges() {
+    int count = ((this.tilesX - 1) * this.grid.height) + ((this.tilesY - 1) * this.grid.width);
+    int[] edges = new int[count];
+    int i = 0;
+    for (int y = 0; y < this.grid.height; y++) {
+      for (int x = 0; x < this.grid.width; x++) {
+        int cell = this.grid.cellAt(x, y);
+        if (x + 1 < this.grid.width && (x + 1) % this.tileSize == 0) {
+          edges[i] = this.grid.edgeId(cell, MazeGrid.RIGHT);
+          i = i + 1;
+        }
+        if (y + 1 < this.grid.height && (y + 1) % this.tileSize == 0) {
+          edges[i] = this.grid.edgeId(cell, MazeGrid.BOTTOM);
+          i = i + 1;
+        }
+      }
+    }
+    return edges;
+  }
+}
+
+// carves the tiles lo..hi-1 of a TiledMazeGenerator, splitting the range in half
+// until it is a single tile
+class TileTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  TiledMazeGenerator generator;
+  SplittableRandom[] rands;
+  int[] carvedPerTile;
+  int lo;
+  int hi;
+
+  // constructor taking in all fields
+  TileTask(TiledMazeGenerator generator, SplittableRandom[] rands, int[] carvedPerTile, int lo,
+      int hi) {
+    this.generator = generator;
+    this.rands = rands;
+    this.carvedPerTile = carvedPerTile;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  // EFFECT: carves this task's tiles, recording how many passages each opened
+  protected void compute() {
+    if (this.hi - this.lo > 1) {
+      int mid = (this.lo + this.hi) / 2;
+      invokeAll(new TileTask(this.generator, this.rands, this.carvedPerTile, this.lo, mid),
+          new TileTask(this.generator, this.rands, this.carvedPerTile, mid, this.hi));
+    }
+    else if (this.hi - this.lo == 1) {
+      this.carvedPerTile[this.lo] = this.generator.carveTile(this.lo, this.rands[this.lo]);
+    }
+  }
+}
+
+// filters the boundary edges lo..hi-1 of a TiledMazeGenerator down to the ones
+// whose tiles aren't connected yet, keeping their order, and returns how many
+// are kept, moved to the start of the range. Ranges bigger than GRAIN are split
+// in half, and the right half's survivors are moved up against the left's
+class SeamFilterTask extends RecursiveTask<Integer> {
+  private static final long serialVersionUID = 1L;
+  static final int GRAIN = 4096;
+
+  TiledMazeGenerator generator;
+  DisjointSet tiles;
+  int[] edges;
+  int lo;
+  int hi;
+
+  // constructor taking in all fields
+  SeamFilterTask(TiledMazeGenerator generator, DisjointSet tiles, int[] edges, int lo,
+      int hi) {
+    this.generator = generator;
+    this.tiles = tiles;
+    this.edges = edges;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  // EFFECT: compacts this task's range to the edges still joining separate tiles
+  protected Integer compute() {
+    if (this.hi - this.lo > GRAIN) {
+      int mid = (this.lo + this.hi) / 2;
+      SeamFilterTask left = new SeamFilterTask(this.generator, this.tiles, this.edges, this.lo,
+          mid);
+      left.fork();
+      int right = new SeamFilterTask(this.generator, this.tiles, this.edges, mid, this.hi)
+          .compute();
+      int kept = left.join();
+      System.arraycopy(this.edges, mid, this.edges, this.lo + kept, right);
+      return kept + right;
+    }
+    int kept = 0;
+    for (int i = this.lo; i < this.hi; i++) {
+      int edge = this.edges[i];
+      MazeGrid grid = this.generator.grid;
+      if (this.tiles.root(this.generator.tileOf(grid.edgeFrom(edge)))
+          != this.tiles.root(this.generator.tileOf(grid.edgeTo(edge)))) {
+        this.edges[this.lo + kept] = edge;
+        kept = kept + 1;
+      }
+    }
+    return kept;
+  }
+}
+
+// a cheap hash of a maze's walls, so batches can be compared and the work of
+// generating them can't be optimized away
+class MazeFingerprint {
+  // the hash of the supplied grid's passages
+  long of(MazeGrid grid) {
+    long hash = (grid.width * 31L) + grid.height;
+    for (byte cell : grid.passages) {
+      hash = (hash * 31) + cell;
+    }
+    return hash;
+  }
+}
+
+// the throughput of one batch of generated mazes
+class BatchReport {
+  int mazes;
+  long cells;
+  long nanos;
+  long bytes;
+  long checksum;
+
+  // constructor taking in all fields
+  BatchReport(int mazes, long cells, long nanos, long bytes, long checksum) {
+    this.mazes = mazes;
+    this.cells = cells;
+    this.nanos = nanos;
+    this.bytes = bytes;
+    this.checksum = checksum;
+  }
+
+  // the number of mazes generated per second
+  double mazesPerSecond() {
+    return this.mazes / (this.nanos / 1e9);
+  }
+
+  // the number of cells generated per second
+  double cellsPerSecond() {
+    return this.cells / (this.nanos / 1e9);
+  }
+
+  // the number of bytes allocated per second
+  double bytesPerSecond() {
+    return this.bytes / (this.nanos / 1e9);
+  }
+
+  // a one-line summary of this report
+  public String toString() {
+    return String.format("%d mazes in %.1f ms: %.1f mazes/s, %.3g cells/s, "
+        + "%.1f MB/s allocated (%d bytes/maze), checksum %016x", this.mazes, this.nanos / 1e6,
+        this.mazesPerSecond(), this.cellsPerSecond(), this.bytesPerSecond() / 1e6,
+        this.bytes / Math.max(1, this.mazes), this.checksum);
+  }
+}
+
+// the benchmarks of the maze's hot paths, so their throughput and allocation
+// can be tracked from release to release. Each benchmark is warmed up and then
+// run for a fixed time on every size, and reports operations per second, time
+// per operation and bytes allocated per operation, as tab-separated lines.
+// run with: java MazeBenchmarks [name filter] [xCells ...]
+// The default sizes stop at 3 million cells; the parallel bfs is meant for tens
+// of millions, so sweep it on 12 million with:
+//   java -Xmx4g MazeBenchmarks parallel-bfs 4000
+class MazeBenchmarks {
+  // the thread counts the parallel benchmarks are swept over
+  static final int[] THREADS = new int[] {1, 2, 4, 8, 16, 32};
+
+  long warmupNanos;
+  long measureNanos;
+
+  // a harness that warms each benchmark up and measures it for the given times
+  MazeBenchmarks(long warmupNanos, long measureNanos) {
+    this.warmupNanos = warmupNanos;
+    this.measureNanos = measureNanos;
+  }
+
+  public static void main(String[] args) {
+    String filter = "";
+    if (args.length > 0) {
+      filter = args[0];
+    }
+    int[] sizes = new int[] {8, 100, 400, 1000, 2000};
+    if (args.length > 1) {
+      sizes = new int[args.length - 1];
+      for (int i = 1; i < args.length; i++) {
+        sizes[i - 1] = Integer.parseInt(args[i]);
+      }
+    }
+    MazeBenchmarks harness = new MazeBenchmarks(500000000L, 1000000000L);
+    System.out.println(new BenchmarkResult("benchmark", 0, 0, 0, 0, 0).header());
+    for (MazeBenchmark benchmark : harness.all()) {
+      if (benchmark.name().contains(filter)) {
+        for (int xCells : sizes) {
+          System.out.println(harness.measure(benchmark, xCells, (xCells / 4) * 3));
+        }
+      }
+    }
+  }
+
+  // every benchmark, in the order they are reported
+  MazeBenchmark[] all() {
+    ArrayList<MazeBenchmark> all = new ArrayList<MazeBenchmark>();
+    all.add(new GenerateBenchmark("kruskal"));
+    all.add(new GenerateBenchmark("backtracker"));
+    all.add(new GenerateBenchmark("prim"));
+    all.add(new GenerateBenchmark("wilson"));
+    all.add(new GenerateBenchmark("eller"));
+    // read against generate-kruskal, the same algorithm on one thread
+    for (int threads : THREADS) {
+      all.add(new TiledBenchmark(32, threads));
+    }
+    all.add(new QuicksortBenchmark());
+    all.add(new OrderBenchmark(false));
+    all.add(new OrderBenchmark(true));
+    all.add(new UnionFindBenchmark());
+    all.add(new SearchBenchmark(true));
+    all.add(new SearchBenchmark(false));
+    all.add(new SolveBenchmark(new BfsSolver()));
+    all.add(new SolveBenchmark(new AStarSolver()));
+    all.add(new SolveBenchmark(new BidirectionalBfsSolver()));
+    // read against solve-bfs, the same search on one thread
+    for (int threads : THREADS) {
+      all.add(new SolveBenchmark(new ParallelBfsSolver(new ForkJoinPool(threads)), threads));
+    }
+    all.add(new IndexBenchmark(true));
+    all.add(new IndexBenchmark(false));
+    all.add(new RenderBenchmark());
+    return all.toArray(new MazeBenchmark[0]);
+  }
+
+  // warms the benchmark up on a maze of the given size, then measures it
+  BenchmarkResult measure(MazeBenchmark benchmark, int xCells, int yCells) {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    benchmark.setup(xCells, yCells);
+    long check = 0;
+    long deadline = System.nanoTime() + this.warmupNanos;
+    do {
+      check = check + benchmark.run();
+    } while (System.nanoTime() - deadline < 0);
+    long ops = 0;
+    long startBytes = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    deadline = start + this.measureNanos;
+    do {
+      check = check + benchmark.run();
+      ops = ops + 1;
+    } while (System.nanoTime() - deadline < 0);
+    long nanos = System.nanoTime() - start;
+    long bytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+    return new BenchmarkResult(benchmark.name(), xCells * yCells, ops, nanos, bytes, check);
+  }
+}
+
+// one operation that MazeBenchmarks times, with inputs set up once per size
+interface MazeBenchmark {
+  // the name the results are reported under
+  String name();
+
+  // EFFECT: prepares the inputs for a maze of the given size, outside the timing
+  void setup(int xCells, int yCells);
+
+  // runs the operation once, and returns a number taken from its result so the
+  // JIT can't throw the work away
+  long run();
+}
+
+// carves a whole maze into a new grid with the named generator, which is what
+// MazeWorld.buildWorld does when generation isn't animated
+class GenerateBenchmark implements MazeBenchmark {
+  String algorithm;
+  int xCells;
+  int yCells;
+  long seed;
+
+  // a benchmark of the named generator
+  GenerateBenchmark(String algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  // the name the results are reported under
+  public String name() {
+    return "generate-" + this.algorithm;
+  }
+
+  // EFFECT: remembers the size of the mazes to carve
+  public void setup(int xCells, int yCells) {
+    this.xCells = xCells;
+    this.yCells = yCells;
+    this.seed = 0;
+  }
+
+  // carves one maze, from a new seed each time
+  public long run() {
+    MazeGrid grid = new MazeGrid(this.xCells, this.yCells);
+    MazeGenerator generator = new MazeGenerators().named(this.algorithm);
+    generator.begin(grid, new SplittableRandom(this.seed));
+    generator.finish();
+    this.seed = this.seed + 1;
+    return grid.passages[grid.cellCount() - 1];
+  }
+}
+
+// ArrayUtils.quicksort on a maze's worth of weighted Edges, the original way
+// Kruskal's worklist was ordered; each run sorts a fresh copy of the list
+class QuicksortBenchmark implements MazeBenchmark {
+  ArrayList<Edge> edges;
+
+  // the name the results are reported under
+  public String name() {
+    return "quicksort";
+  }
+
+  // EFFECT: builds the edges of a grid of the given size with shuffled weights
+  public void setup(int xCells, int yCells) {
+    MazeGrid grid = new MazeGrid(xCells, yCells);
+    int[] ids = grid.edgeIds();
+    int[] weights = new KruskalGenerator().weights(ids.length, new SplittableRandom(1));
+    this.edges = new ArrayList<Edge>();
+    for (int i = 0; i < ids.length; i++) {
+      this.edges.add(new Edge(grid.edgeFrom(ids[i]), grid.edgeTo(ids[i]), weights[i]));
+    }
+  }
+
+  // sorts a copy of the edges by weight
+  public long run() {
+    ArrayList<Edge> list = new ArrayList<Edge>(this.edges);
+    new ArrayUtils().quicksort(list, new EdgeComparator());
+    return list.get(0).from;
+  }
+}
+
+// TiledMazeGenerator carving a whole maze into a new grid on a given number of
+// threads, reported under that number so a sweep shows the speedup. Only the
+// calling thread's allocation is counted
+class TiledBenchmark implements MazeBenchmark {
+  int tileSize;
+  int threads;
+  int xCells;
+  int yCells;
+  long seed;
+
+  // a benchmark of tiles of the given size, carved by the given number of threads
+  TiledBenchmark(int tileSize, int threads) {
+    this.tileSize = tileSize;
+    this.threads = threads;
+  }
+
+  // the name the results are reported under
+  public String name() {
+    return "generate-tiled-t" + this.threads;
+  }
+
+  // EFFECT: remembers the size of the mazes to carve
+  public void setup(int xCells, int yCells) {
+    this.xCells = xCells;
+    this.yCells = yCells;
+    this.seed = 0;
+  }
+
+  // carves one maze, from a new seed each time
+  public long run() {
+    MazeGrid grid = new MazeGrid(this.xCells, this.yCells);
+    new TiledMazeGenerator(grid, this.tileSize).generate(new SplittableRandom(this.seed),
+        this.threads);
+    this.seed = this.seed + 1;
+    return grid.passages[grid.cellCount() - 1];
+  }
+}
+
+// putting a maze's edges in the order of their shuffled weights, the way Kruskal
+// orders its worklist: placing each edge at its weight when the weights are a
+// permutation, or radix sorting them when they aren't
+class OrderBenchmark implements MazeBenchmark {
+  boolean radix;
+  int[] edges;
+  int[] weights;
+
+  // a benchmark of the radix sort when radix, and of placing otherwise
+  OrderBenchmark(boolean radix) {
+    this.radix = radix;
+  }
+
+  // the name the results are reported under
+  public String name() {
+    if (this.radix) {
+      return "order-radix";
+    }
+    else {
+      return "order-placed";
+    }
+  }
+
+  // EFFECT: lists the edges of a grid of the given size, with shuffled weights
+  public void setup(int xCells, int yCells) {
+    this.edges = new MazeGrid(xCells, yCells).edgeIds();
+    this.weights = new int[this.edges.length];
+    for (int i = 0; i < this.weights.length; i++) {
+      this.weights[i] = i;
+    }
+    new ArrayUtils().shuffle(this.weights, new SplittableRandom(1));
+  }
+
+  // orders the edges by weight
+  public long run() {
+    if (this.radix) {
+      return new ArrayUtils().radixSort(this.edges, this.weights)[0];
+    }
+    else {
+      return new ArrayUtils().orderByPermutation(this.edges, this.weights)[0];
+    }
+  }
+}
+
+// DisjointSet union and find over every passage of a maze, in the shuffled
+// order Kruskal tries them, with a find on both ends of each
+class UnionFindBenchmark implements MazeBenchmark {
+  int cells;
+  int[] from;
+  int[] to;
+
+  // the name the results are reported under
+  public String name() {
+    return "union-find";
+  }
+
+  // EFFECT: records the ends of every edge of a grid of the given size, shuffled
+  public void setup(int xCells, int yCells) {
+    MazeGrid grid = new MazeGrid(xCells, yCells);
+    int[] ids = grid.edgeIds();
+    new ArrayUtils().shuffle(ids, new SplittableRandom(1));
+    this.cells = grid.cellCount();
+    this.from = new int[ids.length];
+    this.to = new int[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      this.from[i] = grid.edgeFrom(ids[i]);
+      this.to[i] = grid.edgeTo(ids[i]);
+    }
+  }
+
+  // joins a fresh set of cells along every edge, and counts the joins
+  public long run() {
+    DisjointSet sets = new DisjointSet(this.cells);
+    long joined = 0;
+    for (int i = 0; i < this.from.length; i++) {
+      if (sets.find(this.from[i]) != sets.find(this.to[i])) {
+        sets.union(this.from[i], this.to[i]);
+        joined = joined + 1;
+      }
+    }
+    return joined;
+  }
+}
+
+// the game's worklist bfs or dfs (searchHelp) from the first cell to the last
+class SearchBenchmark implements MazeBenchmark {
+  boolean breadthFirst;
+  MazeGrid grid;
+
+  // a benchmark of the bfs when breadthFirst, and of the dfs otherwise
+  SearchBenchmark(boolean breadthFirst) {
+    this.breadthFirst = breadthFirst;
+  }
+
+  // the name the results are reported under
+  public String name() {
+    if (this.breadthFirst) {
+      return "search-bfs";
+    }
+    else {
+      return "search-dfs";
+    }
+  }
+
+  // EFFECT: carves a Kruskal maze of the given size to search
+  public void setup(int xCells, int yCells) {
+    this.grid = new MazeGrid(xCells, yCells);
+    new KruskalGenerator(this.grid, new SplittableRandom(1)).finish();
+  }
+
+  // searches from the first cell to the last
+  public long run() {
+    ICollection<Integer> worklist = new Stack<Integer>();
+    if (this.breadthFirst) {
+      worklist = new Queue<Integer>();
+    }
+    return new WorklistSearch(this.grid).visit(0, this.grid.cellCount() - 1, worklist).length;
+  }
+}
+
+// one of the MazeSolvers, from the first cell to the last
+class SolveBenchmark implements MazeBenchmark {
+  MazeSolver solver;
+  String name;
+  MazeGrid grid;
+
+  // a benchmark of the supplied solver
+  SolveBenchmark(MazeSolver solver) {
+    this.solver = solver;
+    this.name = "solve-" + solver.name();
+  }
+
+  // a benchmark of the supplied solver running on the given number of threads,
+  // reported under that number so a sweep shows the speedup
+  SolveBenchmark(MazeSolver solver, int threads) {
+    this.solver = solver;
+    this.name = "solve-" + solver.name() + "-t" + threads;
+  }
+
+  // the name the results are reported under
+  public String name() {
+    return this.name;
+  }
+
+  // EFFECT: carves a Kruskal maze of the given size to solve
+  public void setup(int xCells, int yCells) {
+    this.grid = new MazeGrid(xCells, yCells);
+    new KruskalGenerator(this.grid, new SplittableRandom(1)).finish();
+  }
+
+  // solves from the first cell to the last
+  public long run() {
+    return this.solver.solve(this.grid, 0, this.grid.cellCount() - 1).length;
+  }
+}
+
+// a MazeIndex over a maze: building it, or one distance query between two
+// random cells of it
+class IndexBenchmark implements MazeBenchmark {
+  boolean build;
+  MazeGrid grid;
+  MazeIndex index;
+  SplittableRandom rand;
+
+  // a benchmark of building the index when build, and of querying it otherwise
+  IndexBenchmark(boolean build) {
+    this.build = build;
+  }
+
+  // the name the results are reported under
+  public String name() {
+    if (this.build) {
+      return "index-build";
+    }
+    else {
+      return "index-distance";
+    }
+  }
+
+  // EFFECT: carves a Kruskal maze of the given size and indexes it
+  public void setup(int xCells, int yCells) {
+    this.grid = new MazeGrid(xCells, yCells);
+    new KruskalGenerator(this.grid, new SplittableRandom(1)).finish();
+    this.index = new MazeIndex(this.grid);
+    this.rand = new SplittableRandom(2);
+  }
+
+  // builds the index again, or measures the distance between two random cells
+  public long run() {
+    if (this.build) {
+      return new MazeIndex(this.grid).depth[this.grid.cellCount() - 1];
+    }
+    else {
+      int cells = this.grid.cellCount();
+      return this.index.distance(this.rand.nextInt(cells), this.rand.nextInt(cells));
+    }
+  }
+}
+
+// paints every cell in view of a maze into the pixel raster, at the cell size the game
+// would use, which is the work of a full redraw
+class RenderBenchmark implements MazeBenchmark {
+  RasterRenderer raster;
+
+  // the name the results are reported under
+  public String name() {
+    return "render";
+  }
+
+  // EFFECT: carves a Kruskal maze of the given size and sets up a raster of the
+  // part of it an 800x600 window shows
+  public void setup(int xCells, int yCells) {
+    MazeGrid grid = new MazeGrid(xCells, yCells);
+    new KruskalGenerator(grid, new SplittableRandom(1)).finish();
+    Viewport view = new Viewport(xCells, yCells,
+        Math.max(Viewport.MIN_CELL_SIZE, 800 / xCells), 800, 600);
+    this.raster = new RasterRenderer(grid, view.cellSize, view.columns, view.rows);
+  }
+
+  // repaints every cell
+  public long run() {
+    this.raster.renderAll();
+    return this.raster.pixels[this.raster.pixels.length - 1];
+  }
+}
+
+// the measurements of one benchmark on one maze size
+class BenchmarkResult {
+  String name;
+  int cells;
+  long ops;
+  long nanos;
+  long bytes;
+  long check;
+
+  // the result of ops runs taking nanos in total and allocating bytes
+  BenchmarkResult(String name, int cells, long ops, long nanos, long bytes, long check) {
+    this.name = name;
+    this.cells = cells;
+    this.ops = ops;
+    this.nanos = nanos;
+    this.bytes = bytes;
+    this.check = check;
+  }
+
+  // operations per second
+  double opsPerSecond() {
+    return this.ops / (this.nanos / 1e9);
+  }
+
+  // milliseconds per operation
+  double millisPerOp() {
+    return this.nanos / 1e6 / this.ops;
+  }
+
+  // bytes allocated per operation
+  long bytesPerOp() {
+    return this.bytes / this.ops;
+  }
+
+  // the names of the columns toString reports
+  String header() {
+    return "benchmark\tcells\tops/s\tms/op\tbytes/op";
+  }
+
+  // a tab-separated line of the results
+  public String toString() {
+    return String.format("%s\t%d\t%.1f\t%.4f\t%d", this.name, this.cells, this.opsPerSecond(),
+        this.millisPerOp(), this.bytesPerOp());
+  }
+}
+
+// orders recorded JFR events by when they began
+class RecordedEventStarts implements Comparator<RecordedEvent> {
+  // compares the events' start times
+  public int compare(RecordedEvent a, RecordedEvent b) {
+    return a.getStartTime().compareTo(b.getStartTime());
+  }
+}
+
 // examples!
 class ExamplesMaze {
 
   // data declaration
-  Vertex vNull;
-  Vertex vEdge;
-  Vertex v2;
+  MazeGrid g1;
+  MazeGrid g2;
   Edge e1;
   Edge e2;
   Edge e3;
@@ -645,68 +4925,140 @@ class ExamplesMaze {
   Edge e8;
   ArrayList<Edge> el1;
   ArrayList<Edge> el1Sorted;
-  WorldImage v1draw;
-  WorldImage v2draw;
+  WorldImage cellDraw;
   WorldImage vertiEdge;
   WorldImage horiEdge;
-  ArrayList<Vertex> verts1;
-  ArrayList<Vertex> verts2;
+  KruskalGenerator k1;
   MazeWorld mw1;
-  MazeWorld mw2;
   MazeWorld mw3;
-  WorldImage r11;
-  WorldImage r12;
-  WorldImage r13;
+  WorldImage c0;
+  WorldImage c1;
+  WorldImage c2;
+  WorldImage c3;
   WorldImage rComplete;
   ArrayDeque<Integer> tDeque;
 
   // initData initialization;
   public void initData() {
-    this.vNull = new Vertex(1, 1, 40, Color.gray, false, null, null, null, null);
-    this.vEdge = new Vertex(1, 1, 40, Color.gray, false, e1, null, null, null);
-    this.v2 = new Vertex(2, 2, 40, Color.gray, false, e1, null, null, null);
-    this.e1 = new Edge(vEdge, vNull, 1);
-    this.e2 = new Edge(vEdge, vNull, 2);
-    this.e3 = new Edge(vEdge, vNull, 3);
-    this.e4 = new Edge(vEdge, vNull, 4);
-    this.e5 = new Edge(vEdge, vNull, 5);
-    this.e6 = new Edge(vEdge, vNull, 6);
-    this.e7 = new Edge(vEdge, vNull, 7);
-    this.e8 = new Edge(vEdge, vNull, 8);
+    this.g1 = new MazeGrid(4, 3);
+    this.g2 = new MazeGrid(2, 2);
+    this.e1 = new Edge(0, 1, 1);
+    this.e2 = new Edge(0, 1, 2);
+    this.e3 = new Edge(0, 1, 3);
+    this.e4 = new Edge(0, 1, 4);
+    this.e5 = new Edge(0, 1, 5);
+    this.e6 = new Edge(0, 1, 6);
+    this.e7 = new Edge(0, 1, 7);
+    this.e8 = new Edge(0, 1, 8);
     this.el1 = new ArrayList<Edge>(
         Arrays.asList(this.e2, this.e3, this.e1, this.e5, this.e8, this.e7, this.e6, this.e4));
     this.el1Sorted = new ArrayList<Edge>(
         Arrays.asList(this.e1, this.e2, this.e3, this.e4, this.e5, this.e6, this.e7, this.e8));
-    this.vertiEdge = new LineImage(new Posn(0, 40), Color.black);
-    this.horiEdge = new LineImage(new Posn(40, 0), Color.black);
-    this.v1draw = new RectangleImage(40, 40, OutlineMode.SOLID, Color.gray);
-    this.v2draw = new RectangleImage(200, 200, OutlineMode.SOLID, Color.gray);
-    this.verts1 = new ArrayList<Vertex>(
-        Arrays.asList(this.vNull, this.vNull, this.vNull, this.vNull, this.vNull, this.vNull,
-            this.vNull, this.vNull, this.vNull, this.vNull, this.vNull, this.vNull));
-    this.verts2 = new ArrayList<Vertex>(
-        Arrays.asList(this.vNull, this.vNull, this.vNull, this.vNull));
-    this.mw1 = new MazeWorld(4);
-    this.mw2 = new MazeWorld(verts1, 4);
-    this.mw3 = new MazeWorld(verts2, 2);
-
-    this.r11 = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.v1draw, -400, -400,
-        new EmptyImage());
-    this.r12 = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.v1draw, -400, -400,
-        this.r11);
-    this.r13 = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.v1draw, -400, -400,
-        this.r12);
-    this.rComplete = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.v1draw, -400,
-        -400, this.r13);
+    this.vertiEdge = new LineImage(new Posn(0, 400), Color.black);
+    this.horiEdge = new LineImage(new Posn(400, 0), Color.black);
+    this.cellDraw = new RectangleImage(400, 400, OutlineMode.SOLID, Color.gray);
+    this.k1 = new KruskalGenerator();
+    this.mw1 = new MazeWorld(4, new SplittableRandom().nextLong(), 200, 8000000, this.k1);
+    this.mw3 = new MazeWorld(this.g2);
+
+    // the four cells of the unbuilt 2x2 grid, each walled in towards its neighbors
+    this.c0 = new AboveImage(new BesideImage(this.cellDraw, this.vertiEdge), this.horiEdge);
+    this.c1 = new AboveImage(new BesideImage(this.vertiEdge, this.cellDraw), this.horiEdge);
+    this.c2 = new AboveImage(this.horiEdge, new BesideImage(this.cellDraw, this.vertiEdge));
+    this.c3 = new AboveImage(this.horiEdge, new BesideImage(this.vertiEdge, this.cellDraw));
+    this.rComplete = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.c3, -400, -400,
+        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.c2, 0, -400,
+            new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.c1, -400, 0,
+                new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, this.c0, 0, 0,
+                    new EmptyImage()))));
     this.tDeque = new ArrayDeque<Integer>();
   }
 
-  // tests the DrawVertex method
-  public void testDrawVertex(Tester t) {
+  // tests the cellAt, xOf and yOf methods
+  public void testCellAt(Tester t) {
+    this.initData();
+    t.checkExpect(this.g1.cellCount(), 12);
+    t.checkExpect(this.g1.cellAt(0, 0), 0);
+    t.checkExpect(this.g1.cellAt(3, 0), 3);
+    t.checkExpect(this.g1.cellAt(1, 2), 9);
+    t.checkExpect(this.g1.xOf(9), 1);
+    t.checkExpect(this.g1.yOf(9), 2);
+    t.checkExpect(this.g1.xOf(3), 3);
+    t.checkExpect(this.g1.yOf(3), 0);
+  }
+
+  // tests the hasNeighbor and neighbor methods
+  public void testNeighbor(Tester t) {
+    this.initData();
+    t.checkExpect(this.g1.hasNeighbor(0, MazeGrid.LEFT), false);
+    t.checkExpect(this.g1.hasNeighbor(0, MazeGrid.TOP), false);
+    t.checkExpect(this.g1.hasNeighbor(0, MazeGrid.RIGHT), true);
+    t.checkExpect(this.g1.hasNeighbor(0, MazeGrid.BOTTOM), true);
+    t.checkExpect(this.g1.hasNeighbor(11, MazeGrid.RIGHT), false);
+    t.checkExpect(this.g1.hasNeighbor(11, MazeGrid.BOTTOM), false);
+    t.checkExpect(this.g1.neighbor(5, MazeGrid.LEFT), 4);
+    t.checkExpect(this.g1.neighbor(5, MazeGrid.RIGHT), 6);
+    t.checkExpect(this.g1.neighbor(5, MazeGrid.TOP), 1);
+    t.checkExpect(this.g1.neighbor(5, MazeGrid.BOTTOM), 9);
+  }
+
+  // tests the opposite and sideTowards methods
+  public void testSides(Tester t) {
+    this.initData();
+    t.checkExpect(this.g1.opposite(MazeGrid.LEFT), MazeGrid.RIGHT);
+    t.checkExpect(this.g1.opposite(MazeGrid.TOP), MazeGrid.BOTTOM);
+    t.checkExpect(this.g1.sideTowards(5, 4), MazeGrid.LEFT);
+    t.checkExpect(this.g1.sideTowards(5, 6), MazeGrid.RIGHT);
+    t.checkExpect(this.g1.sideTowards(5, 1), MazeGrid.TOP);
+    t.checkExpect(this.g1.sideTowards(5, 9), MazeGrid.BOTTOM);
+  }
+
+  // tests the connect, hasPassage and hasWall methods
+  public void testConnect(Tester t) {
+    this.initData();
+    t.checkExpect(this.g1.hasPassage(5, MazeGrid.RIGHT), false);
+    t.checkExpect(this.g1.hasWall(5, MazeGrid.RIGHT), true);
+    t.checkExpect(this.g1.hasWall(0, MazeGrid.LEFT), false);
+    this.g1.connect(5, 6);
+    t.checkExpect(this.g1.hasPassage(5, MazeGrid.RIGHT), true);
+    t.checkExpect(this.g1.hasPassage(6, MazeGrid.LEFT), true);
+    t.checkExpect(this.g1.hasWall(5, MazeGrid.RIGHT), false);
+    t.checkExpect(this.g1.hasWall(5, MazeGrid.BOTTOM), true);
+    this.g1.connect(9, 5);
+    t.checkExpect(this.g1.hasPassage(5, MazeGrid.BOTTOM), true);
+    t.checkExpect(this.g1.hasPassage(9, MazeGrid.TOP), true);
+    t.checkExpect(this.g1.passages[5], (byte) (MazeGrid.RIGHT | MazeGrid.BOTTOM));
+  }
+
+  // tests the isOpen method
+  public void testIsOpen(Tester t) {
     this.initData();
-    t.checkExpect(this.vNull.drawVertex(new ArrayList<Edge>()), this.v1draw);
-    t.checkExpect(this.vEdge.drawVertex(new ArrayList<Edge>(Arrays.asList(this.e1, this.e2))),
-        new BesideImage(vertiEdge, this.v1draw));
+    t.checkExpect(this.g1.isOpen(10), false);
+    t.checkExpect(this.g1.isOpen(11), false);
+    this.g1.connect(5, 6);
+    t.checkExpect(this.g1.isOpen(10), true);
+    t.checkExpect(this.g1.isOpen(11), false);
+    this.g1.connect(9, 5);
+    t.checkExpect(this.g1.isOpen(11), true);
+  }
+
+  // tests the modifyCell method
+  public void testModifyCell(Tester t) {
+    this.initData();
+    t.checkExpect(this.g1.colors[3], Palette.UNVISITED);
+    t.checkExpect(this.g1.traced[3], false);
+    this.g1.modifyCell(3);
+    t.checkExpect(this.g1.colors[3], Palette.CURRENT);
+    t.checkExpect(this.g1.traced[3], true);
+  }
+
+  // tests the drawCell method
+  public void testDrawCell(Tester t) {
+    this.initData();
+    t.checkExpect(this.mw3.drawCell(0), this.c0);
+    t.checkExpect(this.mw3.drawCell(3), this.c3);
+    this.g2.connect(0, 1);
+    t.checkExpect(this.mw3.drawCell(0), new AboveImage(this.cellDraw, this.horiEdge));
   }
 
   // tests the compareTo method
@@ -729,61 +5081,55 @@ class ExamplesMaze {
   boolean testFindLeft(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    return t.checkExpect(this.mw1.findLeft(1, 0), this.mw1.vertices.get(0))
-        && t.checkExpect(this.mw1.findLeft(2, 0), this.mw1.vertices.get(1))
-        && t.checkExpect(this.mw1.findLeft(1, 1), this.mw1.vertices.get(4))
-        && t.checkExpect(this.mw1.findLeft(2, 1), this.mw1.vertices.get(5));
+    return t.checkExpect(this.mw1.findLeft(1, 0), 0) && t.checkExpect(this.mw1.findLeft(2, 0), 1)
+        && t.checkExpect(this.mw1.findLeft(1, 1), 4) && t.checkExpect(this.mw1.findLeft(2, 1), 5);
   }
 
   // tests findTop method
   boolean testFindTop(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    return t.checkExpect(this.mw1.findTop(2, 2), this.mw1.vertices.get(6))
-        && t.checkExpect(this.mw1.findTop(1, 2), this.mw1.vertices.get(5))
-        && t.checkExpect(this.mw1.findTop(2, 1), this.mw1.vertices.get(2))
-        && t.checkExpect(this.mw1.findTop(0, 1), this.mw1.vertices.get(0));
+    return t.checkExpect(this.mw1.findTop(2, 2), 6) && t.checkExpect(this.mw1.findTop(1, 2), 5)
+        && t.checkExpect(this.mw1.findTop(2, 1), 2) && t.checkExpect(this.mw1.findTop(0, 1), 0);
   }
 
   // tests findRight method
   boolean testFindRight(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    return t.checkExpect(this.mw1.findRight(0, 0), this.mw1.vertices.get(1))
-        && t.checkExpect(this.mw1.findRight(1, 2), this.mw1.vertices.get(10))
-        && t.checkExpect(this.mw1.findRight(0, 2), this.mw1.vertices.get(9))
-        && t.checkExpect(this.mw1.findRight(1, 1), this.mw1.vertices.get(6));
+    return t.checkExpect(this.mw1.findRight(0, 0), 1)
+        && t.checkExpect(this.mw1.findRight(1, 2), 10)
+        && t.checkExpect(this.mw1.findRight(0, 2), 9)
+        && t.checkExpect(this.mw1.findRight(1, 1), 6);
   }
 
   // tests findBottom method
   boolean testFindBottom(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    return t.checkExpect(this.mw1.findBottom(0, 0), this.mw1.vertices.get(4))
-        && t.checkExpect(this.mw1.findBottom(0, 1), this.mw1.vertices.get(8))
-        && t.checkExpect(this.mw1.findBottom(1, 0), this.mw1.vertices.get(5))
-        && t.checkExpect(this.mw1.findBottom(2, 1), this.mw1.vertices.get(10));
+    return t.checkExpect(this.mw1.findBottom(0, 0), 4)
+        && t.checkExpect(this.mw1.findBottom(0, 1), 8)
+        && t.checkExpect(this.mw1.findBottom(1, 0), 5)
+        && t.checkExpect(this.mw1.findBottom(2, 1), 10);
   }
 
   // tests the buildWorld method
   void testBuildWorld(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(this.mw1.vertices.size(), 12);
-    t.checkExpect(this.mw1.vertices.get(0).color, Color.green);
-    t.checkExpect(this.mw1.vertices.get(11).color, Color.magenta);
-    t.checkExpect(this.mw1.vertices.get(5).color, Color.gray);
-    t.checkExpect(this.mw1.worklist.size(), 17);
-    t.checkExpect(this.mw1.vertices.get(0).top, null);
-    t.checkExpect(this.mw1.vertices.get(0).left, null);
-    t.checkExpect(this.mw1.vertices.get(0).right.from, this.mw1.vertices.get(0));
-    t.checkExpect(this.mw1.vertices.get(0).right.to, this.mw1.vertices.get(1));
-    t.checkExpect(this.mw1.vertices.get(0).bottom.from, this.mw1.vertices.get(0));
-    t.checkExpect(this.mw1.vertices.get(0).bottom.to, this.mw1.vertices.get(4));
-    t.checkExpect(this.mw1.vertices.get(5).left.from, this.mw1.vertices.get(4));
-    t.checkExpect(this.mw1.vertices.get(5).left.to, this.mw1.vertices.get(5));
-    t.checkExpect(this.mw1.vertices.get(5).top.from, this.mw1.vertices.get(1));
-    t.checkExpect(this.mw1.vertices.get(5).top.to, this.mw1.vertices.get(5));
+    t.checkExpect(this.mw1.grid.cellCount(), 12);
+    t.checkExpect(this.mw1.lastCell(), 11);
+    t.checkExpect(this.mw1.grid.colors[0], Palette.START);
+    t.checkExpect(this.mw1.grid.colors[11], Palette.GOAL);
+    t.checkExpect(this.mw1.grid.colors[5], Palette.UNVISITED);
+    t.checkExpect(this.k1.estimatedSteps(), 17);
+    t.checkExpect(this.mw1.grid.hasWall(0, MazeGrid.TOP), false);
+    t.checkExpect(this.mw1.grid.hasWall(0, MazeGrid.LEFT), false);
+    t.checkExpect(this.mw1.grid.hasWall(0, MazeGrid.RIGHT), true);
+    t.checkExpect(this.mw1.grid.hasWall(0, MazeGrid.BOTTOM), true);
+    t.checkExpect(this.mw1.grid.hasWall(5, MazeGrid.LEFT), true);
+    t.checkExpect(this.mw1.grid.hasWall(5, MazeGrid.TOP), true);
+    t.checkExpect(this.k1.sets.find(5), 5);
   }
 
   // bigBang method!
@@ -793,93 +5139,122 @@ class ExamplesMaze {
     m1.bigBang(m1.width, m1.height, tickRate);
   }
 
-  // tests the quickSort method
-  public void testQuickSort(Tester t) {
+  // tests that buildWorld orders every edge into the worklist exactly once
+  public void testWorklist(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(this.mw1.worklist.get(0).weight < this.mw1.worklist.get(1).weight, true);
-    t.checkExpect(this.mw1.worklist.get(5).weight < this.mw1.worklist.get(10).weight, true);
-    t.checkExpect(this.mw1.worklist.get(10).weight < this.mw1.worklist.get(5).weight, false);
-    t.checkExpect(this.mw1.worklist.get(11).weight > this.mw1.worklist.get(1).weight, true);
-  }
-
-  // tests the Equals override for Vertices
-  public boolean testEquals(Tester t) {
-    return t.checkExpect(vNull.equals(vNull), true) && t.checkExpect(vNull.equals(vEdge), false)
-        && t.checkExpect(vNull.equals(v2), false);
+    int[] sorted = Arrays.copyOf(this.k1.order, this.k1.estimatedSteps());
+    Arrays.sort(sorted);
+    t.checkExpect(sorted, this.mw1.grid.edgeIds());
   }
 
   // tests the onTick method;
   public void testOntick(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(this.mw1.time >= 0, true);
-    t.checkExpect(this.mw1.edgesInTree.size() >= 0, true);
+    t.checkExpect(this.k1.carved, 0);
+    t.checkExpect(this.mw1.isGenerated(), false);
+    for (int i = 0; i < this.k1.estimatedSteps(); i++) {
+      this.mw1.onTick();
+    }
+    t.checkExpect(this.k1.carved, 11);
+    t.checkExpect(this.mw1.isGenerated(), true);
+    int open = 0;
+    for (int edge : this.mw1.grid.edgeIds()) {
+      if (this.mw1.inTree(edge)) {
+        open = open + 1;
+      }
+    }
+    t.checkExpect(open, 11);
+    t.checkExpect(this.k1.sets.sameSet(0, 11), true);
   }
 
+  // tests the sameSet method of the sets the Kruskal generator unions
   public void testSameReps(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(1)),
-        this.mw1.representatives.get(mw1.vertices.get(1))), true);
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(1)),
-        this.mw1.representatives.get(mw1.vertices.get(6))), false);
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(2)),
-        this.mw1.representatives.get(mw1.vertices.get(6))), false);
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(3)),
-        this.mw1.representatives.get(mw1.vertices.get(2))), false);
-
-    this.mw1.union(this.mw1.representatives, this.mw1.representatives.get(mw1.vertices.get(1)),
-        this.mw1.representatives.get(mw1.vertices.get(6)));
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(1)),
-        this.mw1.representatives.get(mw1.vertices.get(6))), true);
-    this.mw1.union(this.mw1.representatives, this.mw1.representatives.get(mw1.vertices.get(2)),
-        this.mw1.representatives.get(mw1.vertices.get(1)));
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(2)),
-        this.mw1.representatives.get(mw1.vertices.get(6))), true);
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(3)),
-        this.mw1.representatives.get(mw1.vertices.get(2))), false);
-    this.mw1.union(this.mw1.representatives, this.mw1.representatives.get(mw1.vertices.get(3)),
-        this.mw1.representatives.get(mw1.vertices.get(6)));
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(3)),
-        this.mw1.representatives.get(mw1.vertices.get(6))), true);
-    t.checkExpect(this.mw1.sameReps(this.mw1.representatives.get(mw1.vertices.get(3)),
-        this.mw1.representatives.get(mw1.vertices.get(2))), true);
-  }
-
-  // tests the find method
+    t.checkExpect(this.k1.sets.sameSet(1, 1), true);
+    t.checkExpect(this.k1.sets.sameSet(1, 6), false);
+    t.checkExpect(this.k1.sets.sameSet(2, 6), false);
+    t.checkExpect(this.k1.sets.sameSet(3, 2), false);
+
+    this.k1.sets.union(1, 6);
+    t.checkExpect(this.k1.sets.sameSet(1, 6), true);
+    this.k1.sets.union(2, 1);
+    t.checkExpect(this.k1.sets.sameSet(2, 6), true);
+    t.checkExpect(this.k1.sets.sameSet(3, 2), false);
+    this.k1.sets.union(3, 6);
+    t.checkExpect(this.k1.sets.sameSet(3, 6), true);
+    t.checkExpect(this.k1.sets.sameSet(3, 2), true);
+  }
+
+  // tests the find method of the sets the Kruskal generator unions
   public void testFind(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(this.mw1.find(this.mw1.representatives, this.mw1.vertices.get(1)),
-        this.mw1.vertices.get(1));
-    this.mw1.union(this.mw1.representatives, this.mw1.vertices.get(1), this.mw1.vertices.get(6));
-    t.checkExpect(this.mw1.find(this.mw1.representatives, this.mw1.vertices.get(1)),
-        this.mw1.vertices.get(6));
-    this.mw1.union(this.mw1.representatives, this.mw1.vertices.get(2), this.mw1.vertices.get(1));
-    t.checkExpect(this.mw1.find(this.mw1.representatives, this.mw1.vertices.get(2)),
-        this.mw1.vertices.get(6));
-    this.mw1.union(this.mw1.representatives, this.mw1.vertices.get(3), this.mw1.vertices.get(2));
-    t.checkExpect(this.mw1.find(this.mw1.representatives, this.mw1.vertices.get(3)),
-        this.mw1.vertices.get(6));
+    t.checkExpect(this.k1.sets.find(1), 1);
+    this.k1.sets.union(1, 6);
+    t.checkExpect(this.k1.sets.find(1), 6);
+    this.k1.sets.union(2, 1);
+    t.checkExpect(this.k1.sets.find(2), 6);
+    this.k1.sets.union(3, 2);
+    t.checkExpect(this.k1.sets.find(3), 6);
 
   }
 
-  // tests the union method
+  // tests the union method of the sets the Kruskal generator unions
   public void testUnion(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(this.mw1.representatives.get(mw1.vertices.get(1)),
-        this.mw1.representatives.get(mw1.vertices.get(1)));
-    this.mw1.union(mw1.representatives, mw1.vertices.get(1), mw1.vertices.get(2));
-    t.checkExpect(this.mw1.representatives.get(mw1.vertices.get(1)),
-        this.mw1.representatives.get(mw1.vertices.get(2)));
-    this.mw1.union(mw1.representatives, mw1.vertices.get(6), mw1.vertices.get(1));
-    t.checkExpect(this.mw1.representatives.get(mw1.vertices.get(6)),
-        this.mw1.representatives.get(mw1.vertices.get(2)));
-    this.mw1.union(mw1.representatives, mw1.vertices.get(3), mw1.vertices.get(6));
-    t.checkExpect(this.mw1.representatives.get(mw1.vertices.get(3)),
-        this.mw1.representatives.get(mw1.vertices.get(2)));
+    t.checkExpect(this.k1.sets.parent[1], 1);
+    this.k1.sets.union(1, 2);
+    t.checkExpect(this.k1.sets.parent[1], this.k1.sets.parent[2]);
+    this.k1.sets.union(6, 1);
+    t.checkExpect(this.k1.sets.parent[6], this.k1.sets.parent[2]);
+    this.k1.sets.union(3, 6);
+    t.checkExpect(this.k1.sets.parent[3], this.k1.sets.parent[2]);
+  }
+
+  // tests the DisjointSet find method
+  public void testDisjointSetFind(Tester t) {
+    DisjointSet ds = new DisjointSet(5);
+    t.checkExpect(ds.find(3), 3);
+    // a hand-built chain 0 -> 1 -> 2 -> 3
+    ds.parent[0] = 1;
+    ds.parent[1] = 2;
+    ds.parent[2] = 3;
+    t.checkExpect(ds.find(0), 3);
+    // path compression points the whole chain straight at the root
+    t.checkExpect(ds.parent[0], 3);
+    t.checkExpect(ds.parent[1], 3);
+    t.checkExpect(ds.parent[2], 3);
+    t.checkExpect(ds.find(4), 4);
+  }
+
+  // tests the DisjointSet union and sameSet methods
+  public void testDisjointSetUnion(Tester t) {
+    DisjointSet ds = new DisjointSet(5);
+    t.checkExpect(ds.sameSet(0, 1), false);
+    t.checkExpect(ds.union(0, 1), true);
+    t.checkExpect(ds.parent[0], 1);
+    t.checkExpect(ds.rank[1], 1);
+    t.checkExpect(ds.sameSet(0, 1), true);
+    t.checkExpect(ds.union(1, 0), false);
+    // the shallower tree goes under the deeper one, whichever side it is on
+    t.checkExpect(ds.union(1, 2), true);
+    t.checkExpect(ds.parent[2], 1);
+    t.checkExpect(ds.rank[1], 1);
+    t.checkExpect(ds.sameSet(0, 2), true);
+    t.checkExpect(ds.sameSet(0, 4), false);
+  }
+
+  // tests that a long chain of unions doesn't overflow the stack
+  public void testDisjointSetLarge(Tester t) {
+    DisjointSet ds = new DisjointSet(1000000);
+    for (int i = 1; i < 1000000; i++) {
+      ds.union(i - 1, i);
+    }
+    t.checkExpect(ds.sameSet(0, 999999), true);
   }
 
   // tests the sort method
@@ -928,6 +5303,669 @@ class ExamplesMaze {
         Arrays.asList(this.e1, this.e2, this.e3, this.e5, this.e8, this.e7, this.e6, this.e4)));
   }
 
+  // tests the shuffle method
+  public void testShuffle(Tester t) {
+    int[] arr1 = new int[] {0, 1, 2, 3, 4, 5, 6, 7};
+    int[] arr2 = new int[] {0, 1, 2, 3, 4, 5, 6, 7};
+    new ArrayUtils().shuffle(arr1, new SplittableRandom(7));
+    new ArrayUtils().shuffle(arr2, new SplittableRandom(7));
+    // the same seed gives the same order
+    t.checkExpect(arr1, arr2);
+    // and the order is still a permutation of the original items
+    int[] sorted = Arrays.copyOf(arr1, arr1.length);
+    Arrays.sort(sorted);
+    t.checkExpect(sorted, new int[] {0, 1, 2, 3, 4, 5, 6, 7});
+  }
+
+  // tests the KruskalGenerator weights method
+  public void testWeights(Tester t) {
+    this.initData();
+    KruskalGenerator gen = new KruskalGenerator(this.g1, new SplittableRandom(1));
+    int[] weights = gen.weights(17, new SplittableRandom(42));
+    // the same seed gives the same weights
+    t.checkExpect(weights, gen.weights(17, new SplittableRandom(42)));
+    int[] sorted = Arrays.copyOf(weights, weights.length);
+    Arrays.sort(sorted);
+    // and they are a permutation of 0..16
+    for (int i = 0; i < 17; i++) {
+      t.checkExpect(sorted[i], i);
+    }
+    // and the same seed builds the same maze
+    t.checkExpect(new MazeWorld(4, 42, 0, 1000000).buildWorld().grid.passages,
+        new MazeWorld(4, 42, 0, 1000000).buildWorld().grid.passages);
+  }
+
+  // tests the KruskalGenerator step method
+  public void testKruskalStep(Tester t) {
+    this.initData();
+    KruskalGenerator gen = new KruskalGenerator(this.g2, new SplittableRandom(3));
+    t.checkExpect(gen.isDone(), false);
+    // the first edge always connects two separate cells
+    int first = gen.order[0];
+    t.checkExpect(gen.step(), true);
+    t.checkExpect(gen.next, 1);
+    t.checkExpect(gen.carved, 1);
+    t.checkExpect(this.g2.isOpen(first), true);
+    gen.step();
+    gen.step();
+    // a 2x2 grid is done after three passages, or after all four edges were tried
+    t.checkExpect(gen.isDone(), gen.carved == 3);
+    gen.finish();
+    t.checkExpect(gen.isDone(), true);
+    t.checkExpect(gen.carved, 3);
+  }
+
+  // tests the KruskalGenerator stepFor and finish methods
+  public void testKruskalStepFor(Tester t) {
+    this.initData();
+    KruskalGenerator gen = new KruskalGenerator(this.g1, new SplittableRandom(3));
+    t.checkExpect(gen.stepFor(5, 1000000000L), 5);
+    t.checkExpect(gen.next, 5);
+    // a spent budget still tries at least a batch of edges before checking the clock
+    t.checkExpect(gen.stepFor(3, 0), 3);
+    t.checkExpect(gen.stepFor(100, 1000000000L) <= 9, true);
+    t.checkExpect(gen.isDone(), true);
+    t.checkExpect(gen.carved, 11);
+    t.checkExpect(gen.stepFor(5, 1000000000L), 0);
+  }
+
+  // tests the generation modes of MazeWorld
+  public void testGenerationModes(Tester t) {
+    // an instant build is finished before the first tick
+    KruskalGenerator instantGen = new KruskalGenerator();
+    MazeWorld instant = new MazeWorld(40, 5, 0, 1000000, instantGen).buildWorld();
+    t.checkExpect(instant.isGenerated(), true);
+    t.checkExpect(instantGen.carved, 40 * 30 - 1);
+    // an animated build takes about generationTicks ticks, whatever the size
+    KruskalGenerator animatedGen = new KruskalGenerator();
+    MazeWorld animated = new MazeWorld(40, 5, 10, 1000000000L, animatedGen).buildWorld();
+    t.checkExpect(animated.isGenerated(), false);
+    for (int i = 0; i < 5; i++) {
+      animated.onTick();
+    }
+    t.checkExpect(animatedGen.next, (animatedGen.order.length / 10) * 5);
+    for (int i = 0; i < 5; i++) {
+      animated.onTick();
+    }
+    t.checkExpect(animated.isGenerated(), true);
+    // the same seed carves the same maze either way
+    t.checkExpect(animated.grid.passages, instant.grid.passages);
+    // switching to a solver finishes drawing the maze first
+    MazeWorld solving = new MazeWorld(40, 5).buildWorld();
+    solving.onKeyEvent("b");
+    t.checkExpect(solving.isGenerated(), true);
+  }
+
+  // tests the MazeBatch generate method
+  public void testBatchGenerate(Tester t) {
+    MazeBatch batch = new MazeBatch(6, 5);
+    MazeGrid grid = batch.generate(9);
+    t.checkExpect(grid.width, 6);
+    t.checkExpect(grid.height, 5);
+    // the same seed always generates the same maze
+    t.checkExpect(grid.passages, batch.generate(9).passages);
+    t.checkExpect(new MazeFingerprint().of(grid), new MazeFingerprint().of(batch.generate(9)));
+    // and a generated maze is a single spanning tree: 29 passages, 2 sides each
+    int sides = 0;
+    for (int cell = 0; cell < grid.cellCount(); cell++) {
+      sides = sides + Integer.bitCount(grid.passages[cell]);
+    }
+    t.checkExpect(sides, 58);
+  }
+
+  // tests the MazeBatch run method
+  public void testBatchRun(Tester t) {
+    BatchReport report = new MazeBatch(6, 5).run(100, 4);
+    t.checkExpect(report.mazes, 4);
+    t.checkExpect(report.cells, 120L);
+    t.checkExpect(report.nanos > 0, true);
+    t.checkExpect(report.mazesPerSecond() > 0, true);
+    t.checkExpect(report.checksum, new MazeBatch(6, 5).run(100, 4).checksum);
+  }
+
+  // tests the MazeBatch runParallel method
+  public void testBatchRunParallel(Tester t) {
+    MazeBatch batch = new MazeBatch(6, 5);
+    BatchReport one = batch.runParallel(7, 20, 1);
+    BatchReport four = batch.runParallel(7, 20, 4);
+    t.checkExpect(four.mazes, 20);
+    t.checkExpect(four.cells, 600L);
+    // the batch is the same whatever the number of threads
+    t.checkExpect(one.checksum, four.checksum);
+    t.checkExpect(one.checksum == batch.runParallel(8, 20, 4).checksum, false);
+    t.checkExpect(four.bytes > 0, true);
+  }
+
+  // tests the TiledMazeGenerator tileEdges and boundaryEdges methods
+  public void testTileEdges(Tester t) {
+    // a 5x3 grid in 2x2 tiles: three tiles across, two down
+    TiledMazeGenerator tiled = new TiledMazeGenerator(new MazeGrid(5, 3), 2);
+    t.checkExpect(tiled.tilesX, 3);
+    t.checkExpect(tiled.tilesY, 2);
+    t.checkExpect(tiled.tileEdges(0), new int[] {0, 1, 3, 10});
+    // the last tile of the top row is one cell wide
+    t.checkExpect(tiled.tileEdges(2), new int[] {9});
+    // the bottom-right tile is a single cell
+    t.checkExpect(tiled.tileEdges(5), new int[0]);
+    t.checkExpect(tiled.boundaryEdges().length, 11);
+    t.checkExpect(tiled.tileEdges(0).length + tiled.tileEdges(1).length
+        + tiled.tileEdges(2).length + tiled.tileEdges(3).length + tiled.tileEdges(4).length
+        + tiled.tileEdges(5).length + tiled.boundaryEdges().length, 22);
+  }
+
+  // tests the TiledMazeGenerator generate method
+  public void testTiledGenerate(Tester t) {
+    MazeGrid one = new MazeGrid(37, 23);
+    TiledMazeGenerator tiled = new TiledMazeGenerator(one, 8);
+    tiled.generate(new SplittableRandom(4), 1);
+    // the tiles are joined into a single spanning tree
+    t.checkExpect(tiled.carved, 37 * 23 - 1);
+    DisjointSet check = new DisjointSet(one.cellCount());
+    for (int edge : one.edgeIds()) {
+      if (one.isOpen(edge)) {
+        check.union(one.edgeFrom(edge), one.edgeTo(edge));
+      }
+    }
+    t.checkExpect(check.sameSet(0, one.cellCount() - 1), true);
+    t.checkExpect(check.sameSet(0, 300), true);
+    // and the maze is the same whatever the number of threads
+    MazeGrid three = new MazeGrid(37, 23);
+    new TiledMazeGenerator(three, 8).generate(new SplittableRandom(4), 3);
+    t.checkExpect(three.passages, one.passages);
+  }
+
+  // tests that the filtered merge makes the maze a plain Kruskal pass over the
+  // shuffled boundary edges would, on a grid with more seams than one filter task
+  public void testTiledMerge(Tester t) {
+    MazeGrid merged = new MazeGrid(300, 200);
+    TiledMazeGenerator tiled = new TiledMazeGenerator(merged, 8);
+    t.checkExpect(tiled.boundaryEdges().length > 2 * SeamFilterTask.GRAIN, true);
+    tiled.generate(new SplittableRandom(9), 2);
+    t.checkExpect(tiled.carved, merged.cellCount() - 1);
+    t.checkExpect(this.isPerfect(merged), true);
+    // the same tiles, joined one boundary edge at a time over the cells' sets
+    MazeGrid plain = new MazeGrid(300, 200);
+    TiledMazeGenerator reference = new TiledMazeGenerator(plain, 8);
+    SplittableRandom rand = new SplittableRandom(9);
+    SplittableRandom[] rands = new SplittableRandom[reference.tilesX * reference.tilesY];
+    for (int i = 0; i < rands.length; i++) {
+      rands[i] = rand.split();
+    }
+    for (int i = 0; i < rands.length; i++) {
+      reference.carveTile(i, rands[i]);
+    }
+    int[] boundary = reference.boundaryEdges();
+    new ArrayUtils().shuffle(boundary, rand);
+    for (int edge : boundary) {
+      if (reference.sets.union(plain.edgeFrom(edge), plain.edgeTo(edge))) {
+        plain.connect(plain.edgeFrom(edge), plain.edgeTo(edge));
+      }
+    }
+    t.checkExpect(merged.passages, plain.passages);
+    t.checkExpect(tiled.tileOf(plain.cellAt(17, 9)), 40);
+  }
+
+  // tests that a SeamFilterTask keeps, in order, just the edges between
+  // separate tiles
+  public void testSeamFilter(Tester t) {
+    TiledMazeGenerator tiled = new TiledMazeGenerator(new MazeGrid(4, 2), 2);
+    DisjointSet tiles = new DisjointSet(2);
+    // the two edges from tile 0 to tile 1, each followed by one inside tile 0
+    int[] edges = new int[] {2, 1, 10, 0};
+    ForkJoinPool pool = new ForkJoinPool(2);
+    t.checkExpect(pool.invoke(new SeamFilterTask(tiled, tiles, edges, 0, 4)), 2);
+    t.checkExpect(Arrays.copyOf(edges, 2), new int[] {2, 10});
+    tiles.union(0, 1);
+    t.checkExpect(tiles.root(0), tiles.root(1));
+    t.checkExpect(pool.invoke(new SeamFilterTask(tiled, tiles, edges, 0, 2)), 0);
+    pool.shutdown();
+  }
+
+  // tests that MazeBenchmarks runs every benchmark and measures it
+  void testMazeBenchmarks(Tester t) {
+    MazeBenchmarks harness = new MazeBenchmarks(0, 1000000);
+    MazeBenchmark[] all = harness.all();
+    HashSet<String> names = new HashSet<String>();
+    for (MazeBenchmark benchmark : all) {
+      // every row, sweeps included, is reported under a name of its own
+      t.checkExpect(names.add(benchmark.name()), true);
+      BenchmarkResult result = harness.measure(benchmark, 8, 6);
+      t.checkExpect(result.name, benchmark.name());
+      t.checkExpect(result.cells, 48);
+      t.checkExpect(result.ops >= 1, true);
+      t.checkExpect(result.nanos >= 1000000, true);
+    }
+    // the union-find joins a spanning tree's worth of edges
+    UnionFindBenchmark unionFind = new UnionFindBenchmark();
+    unionFind.setup(8, 6);
+    t.checkExpect(unionFind.run(), 47L);
+    // both ways of ordering the edges put the same one first
+    OrderBenchmark placed = new OrderBenchmark(false);
+    OrderBenchmark radix = new OrderBenchmark(true);
+    placed.setup(8, 6);
+    radix.setup(8, 6);
+    t.checkExpect(placed.run(), radix.run());
+    // the tiled generator is swept over the thread counts, on mazes of many tiles
+    TiledBenchmark tiled = new TiledBenchmark(32, 8);
+    t.checkExpect(tiled.name(), "generate-tiled-t8");
+    t.checkExpect(new TiledMazeGenerator(new MazeGrid(100, 75), tiled.tileSize).tilesX, 4);
+    t.checkExpect(all[5].name(), "generate-tiled-t1");
+    t.checkExpect(all[10].name(), "generate-tiled-t32");
+    // and so is the parallel bfs, each on a pool of its own
+    SolveBenchmark parallel = (SolveBenchmark) all[22];
+    t.checkExpect(parallel.name(), "solve-parallel-bfs-t4");
+    t.checkExpect(((ParallelBfsSolver) parallel.solver).pool.getParallelism(), 4);
+  }
+
+  // tests the BenchmarkResult rates and report
+  void testBenchmarkResult(Tester t) {
+    BenchmarkResult result = new BenchmarkResult("render", 48, 4, 2000000, 400, 0);
+    t.checkExpect(result.opsPerSecond(), 2000.0);
+    t.checkExpect(result.millisPerOp(), 0.5);
+    t.checkExpect(result.bytesPerOp(), 100L);
+    t.checkExpect(result.toString(), "render\t48\t2000.0\t0.5000\t100");
+    t.checkExpect(result.header(), "benchmark\tcells\tops/s\tms/op\tbytes/op");
+  }
+
+  // tests the BatchReport rates
+  public void testBatchReport(Tester t) {
+    BatchReport report = new BatchReport(10, 2000, 500000000, 4000, 0);
+    t.checkExpect(report.mazesPerSecond(), 20.0);
+    t.checkExpect(report.cellsPerSecond(), 4000.0);
+    t.checkExpect(report.bytesPerSecond(), 8000.0);
+  }
+
+  // tests the orderByPermutation method
+  public void testOrderByPermutation(Tester t) {
+    t.checkExpect(new ArrayUtils().orderByPermutation(new int[] {10, 11, 12, 13},
+        new int[] {2, 0, 3, 1}), new int[] {11, 13, 10, 12});
+    t.checkExpect(new ArrayUtils().orderByPermutation(new int[0], new int[0]), new int[0]);
+  }
+
+  // tests the radixSort method
+  public void testRadixSort(Tester t) {
+    t.checkExpect(new ArrayUtils().radixSort(new int[] {10, 11, 12, 13},
+        new int[] {2, 0, 3, 1}), new int[] {11, 13, 10, 12});
+    // weights over several bytes, with a tie kept in its original order
+    t.checkExpect(new ArrayUtils().radixSort(new int[] {1, 2, 3, 4, 5},
+        new int[] {70000, 5, 300, 5, 1 << 30}), new int[] {2, 4, 3, 1, 5});
+    t.checkExpect(new ArrayUtils().radixSort(new int[] {7, 8}, new int[] {0, 0}),
+        new int[] {7, 8});
+  }
+
+  // tests the edge id methods
+  public void testEdgeIds(Tester t) {
+    this.initData();
+    t.checkExpect(this.g1.edgeCount(), 17);
+    t.checkExpect(this.g1.edgeIdCount(), 24);
+    t.checkExpect(this.g1.edgeId(5, MazeGrid.RIGHT), 10);
+    t.checkExpect(this.g1.edgeId(5, MazeGrid.BOTTOM), 11);
+    t.checkExpect(this.g1.edgeFrom(11), 5);
+    t.checkExpect(this.g1.edgeTo(10), 6);
+    t.checkExpect(this.g1.edgeTo(11), 9);
+    t.checkExpect(this.g2.edgeIds(), new int[] {0, 1, 3, 4});
+    t.checkExpect(this.g1.edgeIds().length, 17);
+    t.checkExpect(this.g1.edgeBetween(5, MazeGrid.RIGHT), 10);
+    t.checkExpect(this.g1.edgeBetween(5, MazeGrid.BOTTOM), 11);
+    t.checkExpect(this.g1.edgeBetween(6, MazeGrid.LEFT), 10);
+    t.checkExpect(this.g1.edgeBetween(9, MazeGrid.TOP), 11);
+  }
+
+  // is the given grid a perfect maze, with exactly one path between any two cells?
+  boolean isPerfect(MazeGrid grid) {
+    DisjointSet check = new DisjointSet(grid.cellCount());
+    int open = 0;
+    for (int edge : grid.edgeIds()) {
+      if (grid.isOpen(edge)) {
+        open = open + 1;
+        if (!check.union(grid.edgeFrom(edge), grid.edgeTo(edge))) {
+          return false;
+        }
+      }
+    }
+    return open == grid.cellCount() - 1;
+  }
+
+  // tests that every generator carves a perfect maze, the same one for the same seed
+  public void testGenerators(Tester t) {
+    String[] names = new String[] {"kruskal", "backtracker", "prim", "wilson"};
+    for (String name : names) {
+      MazeGenerator generator = new MazeGenerators().named(name);
+      t.checkExpect(generator.name(), name);
+      MazeGrid one = new MazeGrid(13, 9);
+      generator.begin(one, new SplittableRandom(8));
+      t.checkExpect(generator.isDone(), false);
+      generator.finish();
+      t.checkExpect(generator.isDone(), true);
+      t.checkExpect(this.isPerfect(one), true);
+      // a generator can be begun again on a fresh grid
+      MazeGrid two = new MazeGrid(13, 9);
+      generator.begin(two, new SplittableRandom(8));
+      generator.finish();
+      t.checkExpect(two.passages, one.passages);
+      // a single cell is a maze already
+      generator.begin(new MazeGrid(1, 1), new SplittableRandom(8));
+      t.checkExpect(generator.isDone(), true);
+    }
+    t.checkException(new IllegalArgumentException("unknown maze generator: sidewinder"),
+        new MazeGenerators(), "named", "sidewinder");
+  }
+
+  // tests that Eller's algorithm carves a perfect maze a row at a time
+  public void testEller(Tester t) {
+    MazeGenerator eller = new MazeGenerators().named("eller");
+    MazeGrid one = new MazeGrid(13, 9);
+    eller.begin(one, new SplittableRandom(8));
+    t.checkExpect(eller.estimatedSteps(), 9);
+    t.checkExpect(eller.step(), true);
+    t.checkExpect(eller.stepFor(3, 1000000000L), 3);
+    eller.finish();
+    t.checkExpect(eller.isDone(), true);
+    t.checkExpect(this.isPerfect(one), true);
+    // streaming into a grid by hand carves the same maze
+    MazeGrid two = new MazeGrid(13, 9);
+    new EllerGenerator(13, 9, new SplittableRandom(8), new GridRowSink(two)).finish();
+    t.checkExpect(two.passages, one.passages);
+    // a single column or row is still one corridor
+    MazeGrid column = new MazeGrid(1, 5);
+    new EllerGenerator(1, 5, new SplittableRandom(1), new GridRowSink(column)).finish();
+    t.checkExpect(this.isPerfect(column), true);
+    MazeGrid line = new MazeGrid(6, 1);
+    new EllerGenerator(6, 1, new SplittableRandom(1), new GridRowSink(line)).finish();
+    t.checkExpect(this.isPerfect(line), true);
+  }
+
+  // tests that Eller's algorithm streams a very tall maze in memory for one row
+  public void testEllerStream(Tester t) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PackedRowSink sink = new PackedRowSink(out, 6);
+    EllerGenerator eller = new EllerGenerator(6, 200000, new SplittableRandom(2), sink);
+    eller.finish();
+    // a spanning tree, with nothing kept but one row
+    t.checkExpect(eller.carved, 6 * 200000 - 1);
+    t.checkExpect(eller.labels.length, 6);
+    t.checkExpect(eller.row.length, 6);
+    t.checkExpect(sink.written, 2L * 200000);
+    t.checkExpect(out.size(), 2 * 200000);
+  }
+
+  // tests the PackedRowSink acceptRow method
+  public void testPackedRowSink(Tester t) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PackedRowSink sink = new PackedRowSink(out, 5);
+    sink.acceptRow(0, new byte[] {MazeGrid.RIGHT, MazeGrid.BOTTOM | MazeGrid.LEFT,
+        MazeGrid.RIGHT | MazeGrid.BOTTOM | MazeGrid.TOP, MazeGrid.LEFT, MazeGrid.BOTTOM});
+    t.checkExpect(out.toByteArray(), new byte[] {(byte) 0x39, 2});
+    t.checkExpect(sink.written, 2L);
+  }
+
+  // tests that a MazeFile saves and loads a maze exactly
+  public void testMazeFile(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".bin");
+    path.toFile().deleteOnExit();
+    MazeGrid grid = new MazeGrid(13, 9);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    MazeFile saved = new MazeFile(path);
+    saved.save(grid, 6, "kruskal");
+    // the header, then 4 bytes for each of the 9 rows
+    t.checkExpect(saved.written, 23L + 7 + 9 * 4);
+    t.checkExpect(Files.size(path), 23L + 7 + 9 * 4);
+    MazeFile file = new MazeFile(path);
+    MazeGrid loaded = file.load();
+    t.checkExpect(file.width, 13);
+    t.checkExpect(file.height, 9);
+    t.checkExpect(file.seed, 6L);
+    t.checkExpect(file.algorithm, "kruskal");
+    t.checkExpect(loaded.passages, grid.passages);
+    // a maze streamed straight into a file reads back the same
+    MazeFile streamed = new MazeFile(path);
+    streamed.create(13, 9, 8, "eller");
+    new EllerGenerator(13, 9, new SplittableRandom(8), streamed).finish();
+    streamed.close();
+    MazeGrid carved = new MazeGrid(13, 9);
+    new EllerGenerator(13, 9, new SplittableRandom(8), new GridRowSink(carved)).finish();
+    t.checkExpect(new MazeFile(path).load().passages, carved.passages);
+  }
+
+  // tests that a MazeFile refuses files that don't hold a whole maze
+  public void testMazeFileErrors(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".bin");
+    path.toFile().deleteOnExit();
+    Files.write(path, "not a maze at all, just some text".getBytes(StandardCharsets.UTF_8));
+    t.checkException(new IOException("not a maze file: " + path), new MazeFile(path), "load");
+    MazeGrid grid = new MazeGrid(8, 8);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    new MazeFile(path).save(grid, 6, "kruskal");
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+    t.checkException(new EOFException("truncated maze file: " + path), new MazeFile(path),
+        "load");
+    // a failed flush still closes the file
+    MazeFile broken = new MazeFile(path);
+    broken.create(8, 8, 6, "kruskal");
+    broken.channel.close();
+    FileChannel readOnly = FileChannel.open(path, StandardOpenOption.READ);
+    broken.channel = readOnly;
+    t.checkException(new NonWritableChannelException(), broken, "close");
+    t.checkExpect(readOnly.isOpen(), false);
+    t.checkExpect(broken.channel, null);
+  }
+
+  // tests that the "s" and "l" keys save the maze and load it back
+  public void testSaveLoad(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".bin");
+    path.toFile().deleteOnExit();
+    MazeWorld world = new MazeWorld(8, 4, 10, 1000000000L, new PrimGenerator()).buildWorld();
+    world.savePath = path;
+    // saving finishes the maze first
+    world.onKeyEvent("s");
+    t.checkExpect(world.isGenerated(), true);
+    byte[] passages = Arrays.copyOf(world.grid.passages, world.grid.passages.length);
+    long mazeSeed = world.mazeSeed;
+    world.onKeyEvent("r");
+    world.pending.join();
+    world.swapInPrepared();
+    t.checkExpect(world.isGenerated(), false);
+    world.onKeyEvent("l");
+    t.checkExpect(world.fromFile, true);
+    t.checkExpect(world.isGenerated(), true);
+    t.checkExpect(world.grid.passages, passages);
+    t.checkExpect(world.mazeSeed, mazeSeed);
+    t.checkExpect(world.algorithm, "prim");
+    t.checkExpect(world.grid.colors[0], Palette.START);
+    // the saved seed and algorithm carve the same maze again
+    MazeGrid again = new MazeGrid(8, 6);
+    MazeGenerator prim = new MazeGenerators().named(world.algorithm);
+    prim.begin(again, new SplittableRandom(world.mazeSeed));
+    prim.finish();
+    t.checkExpect(again.passages, passages);
+    // and a loaded maze can be solved right away
+    world.onKeyEvent("b");
+    world.onTick();
+    t.checkExpect(world.playback.cursor, 1);
+  }
+
+  // tests that a MappedMaze reads the same walls as the grid it was saved from
+  public void testMappedMaze(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".bin");
+    path.toFile().deleteOnExit();
+    MazeGrid grid = new MazeGrid(13, 9);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    new MazeFile(path).save(grid, 6, "kruskal");
+    MappedMaze maze = new MappedMaze(path);
+    // two 4-byte rows to a mapping, to cover the rows spread over mappings
+    maze.mapBytes = 8;
+    maze.open();
+    t.checkExpect(maze.maps.length, 5);
+    t.checkExpect(maze.columns(), 13);
+    t.checkExpect(maze.rows(), 9);
+    t.checkExpect(maze.file.algorithm, "kruskal");
+    boolean same = true;
+    for (int cell = 0; cell < grid.cellCount(); cell++) {
+      for (int side = MazeGrid.LEFT; side <= MazeGrid.BOTTOM; side = side * 2) {
+        same = same && maze.isPassage(cell, side) == grid.isPassage(cell, side);
+      }
+    }
+    t.checkExpect(same, true);
+    // a maze streamed into a new mapping reads back as a regular maze file
+    MappedMaze streamed = new MappedMaze(path);
+    streamed.mapBytes = 8;
+    streamed.create(13, 9, 8, "eller");
+    new EllerGenerator(13, 9, new SplittableRandom(8), streamed).finish();
+    streamed.force();
+    MazeGrid carved = new MazeGrid(13, 9);
+    new EllerGenerator(13, 9, new SplittableRandom(8), new GridRowSink(carved)).finish();
+    t.checkExpect(new MazeFile(path).load().passages, carved.passages);
+  }
+
+  // tests that the solvers and the index read a mapped maze like the grid it
+  // was saved from, and that a file without cells is refused before mapping
+  public void testMappedMazeSolve(Tester t) throws IOException {
+    Path path = Files.createTempFile("maze", ".bin");
+    path.toFile().deleteOnExit();
+    MazeGrid grid = new MazeGrid(40, 30);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    new MazeFile(path).save(grid, 6, "kruskal");
+    MappedMaze maze = new MappedMaze(path);
+    maze.mapBytes = 100;
+    maze.open();
+    int goal = grid.cellCount() - 1;
+    int[] solved = new BfsSolver().solve(grid, 0, goal);
+    t.checkExpect(new BfsSolver().solve(maze, 0, goal), solved);
+    t.checkExpect(new AStarSolver().solve(maze, 0, goal), solved);
+    t.checkExpect(new BidirectionalBfsSolver().solve(maze, 0, goal), solved);
+    ForkJoinPool pool = new ForkJoinPool(2);
+    t.checkExpect(new ParallelBfsSolver(pool).solve(maze, 0, goal), solved);
+    pool.shutdown();
+    MazeIndex index = new MazeIndex(maze);
+    t.checkExpect(index.path(0, goal), solved);
+    t.checkExpect(index.distance(37, 1000), new MazeIndex(grid).distance(37, 1000));
+    t.checkExpect(new WallCells(maze).neighbor(45, MazeGrid.TOP), 5);
+    // a header with no rows is refused rather than mapped
+    byte[] bytes = Files.readAllBytes(path);
+    ByteBuffer.wrap(bytes).putInt(10, 0);
+    Files.write(path, bytes);
+    t.checkException(new IOException("bad maze size 40x0: " + path), new MappedMaze(path),
+        "open");
+    t.checkException(new IllegalArgumentException("bad maze size 0x9"),
+        new MappedMaze(path), "create", 0, 9, 8L, "eller");
+  }
+
+  // tests that the WallFollower finds the goal of any maze it can see the walls of
+  public void testWallFollower(Tester t) throws IOException {
+    MazeGrid grid = new MazeGrid(13, 9);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    WallFollower follower = new WallFollower(grid, 0);
+    long steps = follower.walkTo(grid.cellCount() - 1);
+    t.checkExpect(follower.cell, (long) grid.cellCount() - 1);
+    // it walks at least the path, and no passage more than twice
+    t.checkExpect(steps >= 13 + 9 - 2, true);
+    t.checkExpect(steps <= 2 * (grid.cellCount() - 1), true);
+    // and takes the same walk through a mapped copy
+    Path path = Files.createTempFile("maze", ".bin");
+    path.toFile().deleteOnExit();
+    new MazeFile(path).save(grid, 6, "kruskal");
+    MappedMaze maze = new MappedMaze(path);
+    maze.open();
+    t.checkExpect(new WallFollower(maze, 0).walkTo(grid.cellCount() - 1), steps);
+    // a walled-in start never reaches the goal
+    this.initData();
+    t.checkExpect(new WallFollower(this.g2, 0).walkTo(3), -1L);
+    t.checkExpect(new WallFollower(this.g2, 3).walkTo(3), 0L);
+  }
+
+  // tests that a WindowRenderer paints a window of a maze like the full raster
+  public void testWindowRenderer(Tester t) {
+    MazeGrid grid = new MazeGrid(13, 9);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    RasterRenderer full = new RasterRenderer(grid, 5);
+    full.renderAll();
+    WindowRenderer window = new WindowRenderer(grid, 5, 13, 9);
+    window.render(0, 0);
+    t.checkExpect(window.raster.pixels, full.pixels);
+    // a window partly past the edge shows the cells it can, and wall elsewhere
+    WindowRenderer corner = new WindowRenderer(grid, 5, 4, 4);
+    corner.render(11, -2);
+    t.checkExpect(corner.raster.pixelAt(2, 2), RasterRenderer.WALL);
+    t.checkExpect(corner.raster.pixelAt(12, 12), RasterRenderer.WALL);
+    t.checkExpect(corner.raster.pixelAt(2, 12), full.pixelAt(57, 2));
+    t.checkExpect(corner.raster.pixelAt(8, 17), full.pixelAt(63, 7));
+  }
+
+  // tests that the step budget of each generator covers its whole run
+  public void testGeneratorSteps(Tester t) {
+    String[] names = new String[] {"kruskal", "backtracker", "prim", "wilson"};
+    for (String name : names) {
+      MazeGenerator generator = new MazeGenerators().named(name);
+      generator.begin(new MazeGrid(6, 4), new SplittableRandom(2));
+      int steps = 0;
+      while (!generator.isDone()) {
+        generator.step();
+        steps = steps + 1;
+      }
+      t.checkExpect(steps > 0, true);
+      t.checkExpect(generator.estimatedSteps() > 0, true);
+    }
+    // the backtracker opens a passage or backs up one cell on each step
+    MazeGenerator backtracker = new BacktrackerGenerator();
+    backtracker.begin(new MazeGrid(6, 4), new SplittableRandom(2));
+    t.checkExpect(backtracker.stepFor(5, 1000000000L), 5);
+  }
+
+  // tests that a new world starts its first maze once, on the constructor's grid
+  public void testBuildWorldOnce(Tester t) {
+    MazeWorld world = new MazeWorld(8, 3, 10, 1000000000L);
+    MazeGrid blank = world.grid;
+    t.checkExpect(world.algorithm, null);
+    world.buildWorld();
+    t.checkExpect(world.grid == blank, true);
+    t.checkExpect(world.mazeSeed, new SplittableRandom(3).nextLong());
+    t.checkExpect(world.algorithm, "kruskal");
+    // a second build starts over on a fresh grid
+    world.buildWorld();
+    t.checkExpect(world.grid == blank, false);
+  }
+
+  // tests that MazeWorld animates whichever generator it is given
+  public void testWorldGenerator(Tester t) {
+    MazeWorld world = new MazeWorld(100, 3, 50, 1000000000L, new WilsonGenerator())
+        .buildWorld();
+    t.checkExpect(world.generator.name(), "wilson");
+    t.checkExpect(world.generator.estimatedSteps() > 10 * world.grid.cellCount(), false);
+    t.checkExpect(world.generator.estimatedSteps() > 5 * world.grid.cellCount(), true);
+    // the walks are counted in the estimate, so the animation takes about as many
+    // ticks as asked for; how long the first walks wander varies a lot between
+    // mazes, so it may take a few times more or half as many
+    int ticks = 0;
+    while (!world.isGenerated() && ticks < 1000) {
+      world.onTick();
+      ticks = ticks + 1;
+    }
+    t.checkExpect(world.isGenerated(), true);
+    t.checkExpect(ticks >= 25 && ticks <= 150, true);
+    t.checkExpect(this.isPerfect(world.grid), true);
+  }
+
+  // tests the IntMinHeap methods
+  public void testIntMinHeap(Tester t) {
+    IntMinHeap heap = new IntMinHeap(1);
+    heap.push(5, 50);
+    heap.push(2, 20);
+    heap.push(9, 90);
+    heap.push(1, 10);
+    heap.push(7, 70);
+    t.checkExpect(heap.size, 5);
+    t.checkExpect(heap.peekKey(), 1);
+    t.checkExpect(heap.pop(), 10);
+    t.checkExpect(heap.pop(), 20);
+    t.checkExpect(heap.pop(), 50);
+    heap.push(3, 30);
+    t.checkExpect(heap.pop(), 30);
+    t.checkExpect(heap.pop(), 70);
+    t.checkExpect(heap.pop(), 90);
+    t.checkExpect(heap.size, 0);
+  }
+
   // tests the draw method
   public void testDraw(Tester t) {
     this.initData();
@@ -940,18 +5978,166 @@ class ExamplesMaze {
     int width = 800;
     int height = 600;
     WorldScene s = new WorldScene(width, height);
-    s.placeImageXY(this.rComplete, width / 2, height / 2);
-    return t.checkExpect(this.mw3.makeScene(), s);
+    s.placeImageXY(this.mw3.renderer.buffer, width / 2, height / 2);
+    return t.checkExpect(this.mw3.makeScene(), s)
+        && t.checkExpect(this.mw3.renderer.buffer.getColorAt(200, 200), Color.gray);
+  }
+
+  // tests the DirtyCells class
+  void testDirtyCells(Tester t) {
+    DirtyCells dirty = new DirtyCells(10);
+    dirty.mark(3);
+    dirty.mark(7);
+    dirty.mark(3);
+    t.checkExpect(dirty.count, 2);
+    t.checkExpect(dirty.cells[0], 3);
+    t.checkExpect(dirty.cells[1], 7);
+    t.checkExpect(dirty.marked.get(7), true);
+    dirty.clear();
+    t.checkExpect(dirty.count, 0);
+    t.checkExpect(dirty.marked.get(7), false);
+    dirty.markAll();
+    dirty.mark(4);
+    t.checkExpect(dirty.all, true);
+    t.checkExpect(dirty.count, 0);
+    dirty.clear();
+    t.checkExpect(dirty.all, false);
+    // a big grid lists a bounded number of cells, then marks them all
+    DirtyCells many = new DirtyCells(4 * DirtyCells.LIMIT);
+    t.checkExpect(many.cells.length, DirtyCells.LIMIT);
+    for (int cell = 0; cell < DirtyCells.LIMIT; cell++) {
+      many.mark(2 * cell);
+    }
+    t.checkExpect(many.all, false);
+    t.checkExpect(many.count, DirtyCells.LIMIT);
+    many.mark(1);
+    t.checkExpect(many.all, true);
+    t.checkExpect(many.marked.get(1), false);
+    many.clear();
+    t.checkExpect(many.count, 0);
+    t.checkExpect(many.marked.isEmpty(), true);
+  }
+
+  // tests that changing a grid marks the changed cells dirty
+  void testMarkDirty(Tester t) {
+    this.initData();
+    // a grid nobody renders tracks nothing
+    this.g1.paint(2, Palette.HINT);
+    t.checkExpect(this.g1.colors[2], Palette.HINT);
+    this.g1.dirty = new DirtyCells(12);
+    this.g1.connect(5, 6);
+    this.g1.modifyCell(9);
+    t.checkExpect(this.g1.dirty.count, 3);
+    t.checkExpect(this.g1.dirty.marked.get(5), true);
+    t.checkExpect(this.g1.dirty.marked.get(6), true);
+    t.checkExpect(this.g1.dirty.marked.get(9), true);
+    t.checkExpect(this.g1.dirty.marked.get(2), false);
+  }
+
+  // tests the MazeRenderer render and paintCell methods
+  void testRender(Tester t) {
+    this.initData();
+    MazeRenderer r = this.mw3.renderer;
+    t.checkExpect(this.g2.dirty, r.dirty);
+    r.render();
+    t.checkExpect(r.dirty.all, false);
+    // the inside of cell 0, and its walls towards cells 1 and 2
+    t.checkExpect(r.buffer.getColorAt(200, 200), Color.gray);
+    t.checkExpect(r.buffer.getColorAt(399, 200), Color.black);
+    t.checkExpect(r.buffer.getColorAt(200, 399), Color.black);
+    // the outer edge of the maze has no wall
+    t.checkExpect(r.buffer.getColorAt(0, 200), Color.gray);
+    this.g2.connect(0, 1);
+    this.g2.paint(3, Palette.START);
+    t.checkExpect(r.dirty.count, 3);
+    r.render();
+    t.checkExpect(r.dirty.count, 0);
+    t.checkExpect(r.buffer.getColorAt(399, 200), Color.gray);
+    t.checkExpect(r.buffer.getColorAt(400, 200), Color.gray);
+    t.checkExpect(r.buffer.getColorAt(200, 399), Color.black);
+    // the 600 pixel window only fits the top row of 400 pixel cells
+    t.checkExpect(r.view.rows, 1);
+    t.checkExpect(r.raster.height, 400);
+    r.view.pan(0, 1);
+    r.render();
+    t.checkExpect(r.buffer.getColorAt(600, 100), Color.green);
+    t.checkExpect(r.buffer.getColorAt(200, 0), Color.black);
+  }
+
+  // tests the RasterRenderer paintCell method
+  void testRasterPaintCell(Tester t) {
+    this.initData();
+    RasterRenderer r = new RasterRenderer(this.g2, 4);
+    t.checkExpect(r.width, 8);
+    t.checkExpect(r.height, 8);
+    t.checkExpect(r.pixels.length, 64);
+    r.paintCell(0);
+    int gray = Color.gray.getRGB();
+    t.checkExpect(r.pixelAt(0, 0), gray);
+    t.checkExpect(r.pixelAt(2, 1), gray);
+    // the walls towards cell 1 (right) and cell 2 (bottom)
+    t.checkExpect(r.pixelAt(3, 1), RasterRenderer.WALL);
+    t.checkExpect(r.pixelAt(1, 3), RasterRenderer.WALL);
+    // nothing outside cell 0 was painted
+    t.checkExpect(r.pixelAt(4, 0), 0);
+    this.g2.connect(0, 1);
+    this.g2.paint(1, Palette.START);
+    r.renderAll();
+    t.checkExpect(r.pixelAt(3, 1), gray);
+    t.checkExpect(r.pixelAt(4, 1), Color.green.getRGB());
+    t.checkExpect(r.pixelAt(5, 3), RasterRenderer.WALL);
+    t.checkExpect(r.pixelAt(1, 4), RasterRenderer.WALL);
+    t.checkExpect(r.pixelAt(5, 5), gray);
+  }
+
+  // tests the colorOf method
+  void testColorOf(Tester t) {
+    this.initData();
+    MazeRenderer r = this.mw3.renderer;
+    t.checkExpect(r.colorOf(Color.red.getRGB()), Color.red);
+    // the same rgb value always gives back the same shared Color
+    t.checkExpect(r.colorOf(Color.red.getRGB()) == r.colorOf(Color.red.getRGB()), true);
+    // the wall and every palette colour are in the table from the start
+    t.checkExpect(r.paletteSize, Palette.ARGB.length + 2);
+    t.checkExpect(r.colorOf(RasterRenderer.WALL), Color.black);
+    t.checkExpect(r.colorOf(Palette.ARGB[Palette.VISITED]), new Color(137, 207, 240));
+    // once the table is half full, new colours are made but not kept
+    for (int i = 0; i < MazeRenderer.PALETTE_SLOTS; i++) {
+      r.colorOf(i);
+    }
+    t.checkExpect(r.paletteSize, MazeRenderer.PALETTE_SLOTS / 2);
+    t.checkExpect(r.colorOf(0xFF123456), new Color(0x123456));
+    t.checkExpect(r.colorOf(Color.red.getRGB()) == r.colorOf(Color.red.getRGB()), true);
   }
 
   // tests the onKey method
   void testOnKey(Tester t) {
     this.initData();
-    t.checkExpect(this.mw1.gameMode, "m");
+    this.mw1.buildWorld();
+    t.checkExpect(this.mw1.gameMode, GameMode.MANUAL);
     this.mw1.onKeyEvent("b");
-    t.checkExpect(this.mw1.gameMode, "b");
+    t.checkExpect(this.mw1.gameMode, GameMode.BFS);
     this.mw1.onKeyEvent("d");
-    t.checkExpect(this.mw1.gameMode, "d");
+    t.checkExpect(this.mw1.gameMode, GameMode.DFS);
+    this.mw1.onKeyEvent("m");
+    t.checkExpect(this.mw1.gameMode, GameMode.MANUAL);
+    t.checkExpect(this.mw1.curCell, 0);
+  }
+
+  // tests the move method
+  void testMove(Tester t) {
+    this.initData();
+    this.mw1.buildWorld();
+    this.mw1.move(MazeGrid.RIGHT);
+    t.checkExpect(this.mw1.curCell, 0);
+    this.mw1.grid.connect(0, 1);
+    this.mw1.move(MazeGrid.RIGHT);
+    t.checkExpect(this.mw1.curCell, 1);
+    t.checkExpect(this.mw1.grid.traced[1], true);
+    t.checkExpect(this.mw1.grid.colors[1], Palette.CURRENT);
+    t.checkExpect(this.mw1.grid.colors[0], Palette.VISITED);
+    this.mw1.onKeyEvent("left");
+    t.checkExpect(this.mw1.curCell, 0);
   }
 
   // tests the Add method
@@ -999,20 +6185,14 @@ class ExamplesMaze {
   void testBFS(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(
-        this.mw1.bfs(this.mw1.vertices.get(0), this.mw1.vertices.get(this.mw1.vertices.size() - 1))
-            .size() > 0,
-        true);
+    t.checkExpect(this.mw1.bfs(0, this.mw1.lastCell()).length > 0, true);
   }
 
   // tests the dfs method
   void testDFS(Tester t) {
     this.initData();
     this.mw1.buildWorld();
-    t.checkExpect(
-        this.mw1.dfs(this.mw1.vertices.get(0), this.mw1.vertices.get(this.mw1.vertices.size() - 1))
-            .size() > 0,
-        true);
+    t.checkExpect(this.mw1.dfs(0, this.mw1.lastCell()).length > 0, true);
   }
 
   // tests the searchHelp method
@@ -1020,18 +6200,721 @@ class ExamplesMaze {
     this.initData();
     this.mw1.buildWorld();
     t.checkExpect(
-        this.mw1
-            .searchHelp(this.mw1.vertices.get(0),
-                this.mw1.vertices.get(this.mw1.vertices.size() - 1), new Queue<Vertex>())
-            .size() > 0,
-        true);
-    t.checkExpect(
-        this.mw1.searchHelp(this.mw1.vertices.get(0),
-            this.mw1.vertices.get(this.mw1.vertices.size() - 1), new Queue<Vertex>()).get(0),
-        this.mw1.vertices.get(0));
-    t.checkExpect(
-        this.mw1.searchHelp(this.mw1.vertices.get(0),
-            this.mw1.vertices.get(this.mw1.vertices.size() - 1), new Stack<Vertex>()).get(0),
-        this.mw1.vertices.get(0));
+        this.mw1.searchHelp(0, this.mw1.lastCell(), new Queue<Integer>()).length > 0, true);
+    t.checkExpect(this.mw1.searchHelp(0, this.mw1.lastCell(), new Queue<Integer>())[0], 0);
+    t.checkExpect(this.mw1.searchHelp(0, this.mw1.lastCell(), new Stack<Integer>())[0], 0);
+    this.mw1.grid.connect(0, 1);
+    this.mw1.grid.connect(1, 5);
+    t.checkExpect(this.mw1.searchHelp(0, 5, new Queue<Integer>()), new int[] {0, 1});
+  }
+
+  // tests the SolverPlayback class
+  void testSolverPlayback(Tester t) {
+    SolverPlayback playback = new SolverPlayback(new int[] {4, 2, 7});
+    t.checkExpect(playback.hasNext(), true);
+    t.checkExpect(playback.next(), 4);
+    t.checkExpect(playback.next(), 2);
+    t.checkExpect(playback.hasNext(), true);
+    t.checkExpect(playback.next(), 7);
+    t.checkExpect(playback.hasNext(), false);
+    t.checkExpect(new SolverPlayback(new int[0]).hasNext(), false);
+  }
+
+  // tests the solve method
+  void testSolve(Tester t) {
+    this.initData();
+    this.mw1.buildWorld();
+    for (int i = 0; i < this.k1.estimatedSteps(); i++) {
+      this.mw1.onTick();
+    }
+    this.mw1.onKeyEvent("b");
+    SolverPlayback bfs = this.mw1.solve();
+    t.checkExpect(bfs.cells[0], 0);
+    t.checkExpect(bfs.cells[bfs.cells.length - 1], 11);
+    this.mw1.onKeyEvent("d");
+    SolverPlayback dfs = this.mw1.solve();
+    t.checkExpect(dfs.cells[0], 0);
+    t.checkExpect(dfs.cells[dfs.cells.length - 1], 11);
+    this.mw1.onKeyEvent("a");
+    SolverPlayback astar = this.mw1.solve();
+    t.checkExpect(astar.cells, new AStarSolver().solve(this.mw1.grid, 0, 11));
+    t.checkExpect(astar.cells.length <= bfs.cells.length, true);
+  }
+
+  // is the path a walk through open passages from one cell to the other?
+  boolean isPath(MazeGrid grid, int[] path, int from, int to) {
+    if (path.length == 0 || path[0] != from || path[path.length - 1] != to) {
+      return false;
+    }
+    for (int i = 1; i < path.length; i++) {
+      int side = grid.sideTowards(path[i - 1], path[i]);
+      if (!grid.hasPassage(path[i - 1], side) || grid.neighbor(path[i - 1], side) != path[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // tests that the MazeSolvers find the one path through a perfect maze
+  void testMazeSolvers(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 30);
+    new KruskalGenerator(grid, new SplittableRandom(11)).finish();
+    int goal = grid.cellCount() - 1;
+    AStarSolver astar = new AStarSolver();
+    BidirectionalBfsSolver both = new BidirectionalBfsSolver();
+    BfsSolver plain = new BfsSolver();
+    int[] path = astar.solve(grid, 0, goal);
+    t.checkExpect(this.isPath(grid, path, 0, goal), true);
+    t.checkExpect(both.solve(grid, 0, goal), path);
+    t.checkExpect(plain.solve(grid, 0, goal), path);
+    // plain bfs explores what the game's visit-order bfs visits, and the goal
+    t.checkExpect(plain.explored(), new MazeWorld(grid).bfs(0, goal).length + 1);
+    t.checkExpect(astar.name(), "astar");
+    t.checkExpect(both.name(), "bidirectional");
+    // a perfect maze has one path, so both agree anywhere, in either direction
+    int[] back = both.solve(grid, 917, 33);
+    t.checkExpect(this.isPath(grid, back, 917, 33), true);
+    t.checkExpect(astar.solve(grid, 917, 33), back);
+    // and both explore fewer cells than plain bfs
+    astar.solve(grid, 0, goal);
+    both.solve(grid, 0, goal);
+    t.checkExpect(astar.explored() < plain.explored(), true);
+    t.checkExpect(both.explored() < plain.explored(), true);
+    // a solve from a cell to itself, and between cells that aren't connected
+    t.checkExpect(astar.solve(grid, 5, 5), new int[] {5});
+    t.checkExpect(both.solve(grid, 5, 5), new int[] {5});
+    this.initData();
+    t.checkExpect(astar.solve(this.g2, 0, 3), new int[0]);
+    t.checkExpect(both.solve(this.g2, 0, 3), new int[0]);
+    this.g2.connect(0, 1);
+    this.g2.connect(1, 3);
+    t.checkExpect(astar.solve(this.g2, 0, 3), new int[] {0, 1, 3});
+    t.checkExpect(both.solve(this.g2, 0, 3), new int[] {0, 1, 3});
+  }
+
+  // tests that a MazeIndex answers path and distance queries like a search would
+  void testMazeIndex(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 30);
+    new KruskalGenerator(grid, new SplittableRandom(11)).finish();
+    MazeIndex index = new MazeIndex(grid);
+    BidirectionalBfsSolver solver = new BidirectionalBfsSolver();
+    int goal = grid.cellCount() - 1;
+    t.checkExpect(index.path(0, goal), solver.solve(grid, 0, goal));
+    t.checkExpect(index.distance(0, goal), solver.solve(grid, 0, goal).length - 1);
+    SplittableRandom rand = new SplittableRandom(5);
+    boolean same = true;
+    for (int i = 0; i < 200; i++) {
+      int from = rand.nextInt(grid.cellCount());
+      int to = rand.nextInt(grid.cellCount());
+      int[] path = solver.solve(grid, from, to);
+      same = same && index.distance(from, to) == path.length - 1
+          && Arrays.equals(index.path(from, to), path)
+          && index.nextStep(from, to) == path[Math.min(1, path.length - 1)];
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(index.distance(7, 7), 0);
+    t.checkExpect(index.path(7, 7), new int[] {7});
+    t.checkExpect(index.nextStep(7, 7), 7);
+    // the root is everyone's ancestor, and each cell is its own
+    t.checkExpect(index.commonAncestor(0, goal), 0);
+    t.checkExpect(index.commonAncestor(goal, goal), goal);
+    t.checkExpect(index.ancestorAt(goal, 0), 0);
+    t.checkExpect(index.ancestorAt(goal, index.depth[goal] - 1), index.parent[goal]);
+  }
+
+  // tests that a MazeIndex checks player routes, and refuses imperfect mazes
+  void testMazeIndexRoutes(Tester t) {
+    MazeGrid grid = new MazeGrid(13, 9);
+    new KruskalGenerator(grid, new SplittableRandom(6)).finish();
+    MazeIndex index = new MazeIndex(grid);
+    int goal = grid.cellCount() - 1;
+    int[] path = index.path(0, goal);
+    t.checkExpect(index.isRoute(path, 0, goal), true);
+    t.checkExpect(index.isShortestRoute(path), true);
+    // going there and back again is a route, but not the shortest one
+    int[] detour = new int[path.length + 2];
+    detour[0] = 0;
+    detour[1] = path[1];
+    System.arraycopy(path, 0, detour, 2, path.length);
+    t.checkExpect(index.isRoute(detour, 0, goal), true);
+    t.checkExpect(index.isShortestRoute(detour), false);
+    // skipping a cell, or stopping short, is not a route
+    t.checkExpect(index.isRoute(Arrays.copyOfRange(path, 1, path.length), 0, goal), false);
+    t.checkExpect(index.isRoute(new int[] {0, path[2]}, 0, path[2]), false);
+    t.checkExpect(index.isRoute(new int[0], 0, goal), false);
+    t.checkExpect(index.isShortestRoute(new int[0]), false);
+    this.initData();
+    t.checkConstructorException(
+        new IllegalArgumentException("not a perfect maze: 3 cells can't be reached"),
+        "MazeIndex", this.g2);
+    MazeGrid open = new MazeGrid(2, 2);
+    for (int edge : open.edgeIds()) {
+      open.connect(open.edgeFrom(edge), open.edgeTo(edge));
+    }
+    t.checkConstructorException(
+        new IllegalArgumentException("not a perfect maze: it has a loop at 3"), "MazeIndex",
+        open);
+  }
+
+  // tests that the "h" key shows the next step towards the goal
+  void testHint(Tester t) {
+    MazeWorld world = new MazeWorld(8, 3, 10, 1000000000L).buildWorld();
+    // a hint needs the whole maze, so it finishes it first
+    world.onKeyEvent("h");
+    t.checkExpect(world.isGenerated(), true);
+    int next = world.index.nextStep(0, world.lastCell());
+    t.checkExpect(world.grid.colors[next], Palette.HINT);
+    t.checkExpect(world.grid.hasPassage(0, world.grid.sideTowards(0, next)), true);
+    // following the hint leads on along the path
+    world.move(world.grid.sideTowards(0, next));
+    t.checkExpect(world.curCell, next);
+    world.onKeyEvent("h");
+    t.checkExpect(world.grid.colors[world.index.path(0, world.lastCell())[2]], Palette.HINT);
+    // a new maze needs a new index, once it is swapped in
+    world.onKeyEvent("r");
+    world.pending.join();
+    world.swapInPrepared();
+    t.checkExpect(world.index, null);
+  }
+
+  // tests that the ParallelBfsSolver finds the same path whatever the threads
+  void testParallelBfs(Tester t) {
+    MazeGrid grid = new MazeGrid(200, 150);
+    new EllerGenerator(200, 150, new SplittableRandom(4), new GridRowSink(grid)).finish();
+    int goal = grid.cellCount() - 1;
+    BfsSolver bfs = new BfsSolver();
+    int[] path = bfs.solve(grid, 0, goal);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ParallelBfsSolver parallel = new ParallelBfsSolver(pool);
+    t.checkExpect(parallel.solve(grid, 0, goal), path);
+    // it expands whole levels, stopping after the one that reaches the goal
+    MazeIndex index = new MazeIndex(grid);
+    int shallower = 0;
+    for (int cell = 0; cell < grid.cellCount(); cell++) {
+      if (index.depth[cell] < index.depth[goal]) {
+        shallower = shallower + 1;
+      }
+    }
+    t.checkExpect(parallel.explored(), shallower);
+    t.checkExpect(parallel.name(), "parallel-bfs");
+    // an open grid has wide levels, which are split over the pool
+    MazeGrid open = new MazeGrid(300, 300);
+    for (int edge : open.edgeIds()) {
+      open.connect(open.edgeFrom(edge), open.edgeTo(edge));
+    }
+    int[] diagonal = parallel.solve(open, 0, open.cellCount() - 1);
+    t.checkExpect(this.isPath(open, diagonal, 0, open.cellCount() - 1), true);
+    t.checkExpect(diagonal.length, 599);
+    t.checkExpect(parallel.solve(open, 450, 450), new int[] {450});
+    this.initData();
+    t.checkExpect(parallel.solve(this.g2, 0, 3), new int[0]);
+    pool.shutdown();
+  }
+
+  // tests the ParallelBfsSolver claim method
+  void testParallelBfsClaim(Tester t) {
+    this.initData();
+    ParallelBfsSolver parallel = new ParallelBfsSolver(ForkJoinPool.commonPool());
+    parallel.solve(this.g1, 0, 0);
+    t.checkExpect(parallel.claim(70 % 12), true);
+    t.checkExpect(parallel.claim(70 % 12), false);
+    t.checkExpect(parallel.claim(0), false);
+    t.checkExpect(parallel.visited.get(0), 1L | (1L << 10));
+  }
+
+  // tests that a ParallelBfsSolver solving again reuses its arrays and buffers,
+  // allocating little more than the path
+  void testParallelBfsReuse(Tester t) {
+    MazeGrid grid = new MazeGrid(200, 150);
+    new EllerGenerator(200, 150, new SplittableRandom(4), new GridRowSink(grid)).finish();
+    int goal = grid.cellCount() - 1;
+    ParallelBfsSolver parallel = new ParallelBfsSolver(ForkJoinPool.commonPool());
+    int[] path = parallel.solve(grid, 0, goal);
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long startBytes = threads.getThreadAllocatedBytes(threadId);
+    int[] again = parallel.solve(grid, 0, goal);
+    long bytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+    t.checkExpect(again, path);
+    t.checkExpect(bytes < 4L * path.length + 4096, true);
+    t.checkExpect(parallel.scratch.get().length, 8 * ParallelBfsSolver.GRAIN);
+  }
+
+  // tests the solver on a grid with loops, where A* must keep the cheaper way
+  void testMazeSolversLoops(Tester t) {
+    // a 3x3 grid open everywhere: every shortest path from corner to corner is 5 cells
+    MazeGrid open = new MazeGrid(3, 3);
+    for (int edge : open.edgeIds()) {
+      open.connect(open.edgeFrom(edge), open.edgeTo(edge));
+    }
+    int[] astar = new AStarSolver().solve(open, 0, 8);
+    int[] both = new BidirectionalBfsSolver().solve(open, 0, 8);
+    t.checkExpect(this.isPath(open, astar, 0, 8), true);
+    t.checkExpect(astar.length, 5);
+    t.checkExpect(this.isPath(open, both, 0, 8), true);
+    t.checkExpect(both.length, 5);
+    t.checkExpect(new BfsSolver().solve(open, 0, 8).length, 5);
+  }
+
+  // tests that the solver game modes play their search back tick by tick
+  void testSolverTicks(Tester t) {
+    this.initData();
+    this.mw1.buildWorld();
+    for (int i = 0; i < this.k1.estimatedSteps(); i++) {
+      this.mw1.onTick();
+    }
+    this.mw1.onKeyEvent("b");
+    t.checkExpect(this.mw1.playback, null);
+    this.mw1.onTick();
+    t.checkExpect(this.mw1.playback.cursor, 1);
+    t.checkExpect(this.mw1.curCell, 0);
+    this.mw1.onTick();
+    t.checkExpect(this.mw1.playback.cursor, 2);
+    t.checkExpect(this.mw1.grid.traced[this.mw1.curCell], true);
+    for (int i = 0; i < 12; i++) {
+      this.mw1.onTick();
+    }
+    t.checkExpect(this.mw1.curCell, 11);
+    // switching modes starts a new search
+    this.mw1.onKeyEvent("d");
+    t.checkExpect(this.mw1.playback, null);
+  }
+
+  // tests that a LatencyHistogram's buckets and percentiles stay within a quarter
+  void testLatencyHistogram(Tester t) {
+    LatencyHistogram h = new LatencyHistogram();
+    t.checkExpect(h.bucketOf(3), 3);
+    t.checkExpect(h.bucketOf(4), 8);
+    t.checkExpect(h.bucketOf(7), 11);
+    t.checkExpect(h.bucketOf(8), 12);
+    t.checkExpect(h.bucketOf(1000), 39);
+    t.checkExpect(h.upperBound(3), 3L);
+    t.checkExpect(h.upperBound(8), 4L);
+    t.checkExpect(h.upperBound(11), 7L);
+    t.checkExpect(h.upperBound(39), 1023L);
+    t.checkExpect(h.percentile(0.5), 0L);
+    t.checkExpect(h.mean(), 0.0);
+    for (int i = 1; i <= 100; i++) {
+      h.record(i * 1000L);
+    }
+    t.checkExpect(h.count, 100L);
+    t.checkExpect(h.max, 100000L);
+    t.checkExpect(h.mean(), 50500.0);
+    t.checkExpect(h.percentile(0.5) >= 50000 && h.percentile(0.5) <= 62500, true);
+    t.checkExpect(h.percentile(0.99) >= 99000 && h.percentile(0.99) <= 100000, true);
+    t.checkExpect(h.percentile(1.0), 100000L);
+    // negative clock differences count as zero
+    h.record(-5);
+    t.checkExpect(h.buckets[0], 1L);
+  }
+
+  // tests that a MazeWorld times its ticks, keys and frames, and counts its work
+  void testPerfStats(Tester t) {
+    MazeWorld world = new MazeWorld(8, 3, 10, 1000000000L).buildWorld();
+    for (int i = 0; i < 3; i++) {
+      world.onTick();
+    }
+    t.checkExpect(world.stats.tick.count, 3L);
+    t.checkExpect(world.stats.edgesProcessed > 0, true);
+    world.onKeyEvent("b");
+    t.checkExpect(world.stats.key.count, 1L);
+    world.onTick();
+    t.checkExpect(world.stats.cellsVisited, (long) world.playback.cells.length);
+    world.makeScene();
+    t.checkExpect(world.stats.scene.count, 1L);
+    t.checkExpect(world.stats.draw.count, 1L);
+    t.checkExpect(world.stats.imagesAllocated, 1L);
+    t.checkExpect(world.stats.lines().length, 5);
+    // the "p" key adds the overlay's text to each frame
+    world.onKeyEvent("p");
+    t.checkExpect(world.stats.overlay, true);
+    world.makeScene();
+    t.checkExpect(world.stats.imagesAllocated, 8L);
+    world.onKeyEvent("p");
+    t.checkExpect(world.stats.overlay, false);
+  }
+
+  // the maze.Generation events in the recording's file, in the order they began
+  ArrayList<RecordedEvent> generationEvents(Recording recording) throws IOException {
+    Path path = Files.createTempFile("maze", ".jfr");
+    recording.dump(path);
+    ArrayList<RecordedEvent> events = new ArrayList<RecordedEvent>();
+    for (RecordedEvent event : RecordingFile.readAllEvents(path)) {
+      if (event.getEventType().getName().equals("maze.Generation")) {
+        events.add(event);
+      }
+    }
+    Files.delete(path);
+    events.sort(new RecordedEventStarts());
+    return events;
+  }
+
+  // tests that the JFR events carry what the generation and solving did
+  void testPerfEvents(Tester t) throws IOException {
+    GenerationEvent generation = new GenerationEvent();
+    t.checkExpect(generation.finished, false);
+    t.checkExpect(GenerationEvent.TYPE.getName(), "maze.Generation");
+    t.checkExpect(GenerationEvent.TYPE.isEnabled(), false);
+    SolveEvent solve = new SolveEvent();
+    t.checkExpect(solve.visited, 0);
+    MazeWorld world = new MazeWorld(8, 3, 10, 1000000000L).buildWorld();
+    PreparedMaze prepared = new PreparedMaze(new MazeGenerators().named("prim"), 5,
+        new Viewport(6, 4, 16, 800, 600), true);
+    Recording recording = new Recording();
+    recording.enable("maze.Generation");
+    recording.start();
+    t.checkExpect(GenerationEvent.TYPE.isEnabled(), true);
+    long before = world.stats.edgesProcessed;
+    world.onTick();
+    int ticked = (int) (world.stats.edgesProcessed - before);
+    world.finishMaze();
+    prepared.get();
+    recording.stop();
+    ArrayList<RecordedEvent> events = this.generationEvents(recording);
+    recording.close();
+    t.checkExpect(world.isGenerated(), true);
+    t.checkExpect(events.size(), 3);
+    // a tick's worth of steps
+    t.checkExpect(events.get(0).getString("algorithm"), world.algorithm);
+    t.checkExpect(events.get(0).getInt("cells"), 48);
+    t.checkExpect(events.get(0).getInt("steps"), ticked);
+    t.checkExpect(ticked >= 1, true);
+    t.checkExpect(events.get(0).getBoolean("finished"), false);
+    // the rest of the maze at once
+    t.checkExpect(events.get(1).getString("algorithm"), world.algorithm);
+    t.checkExpect(events.get(1).getInt("cells"), 48);
+    t.checkExpect(events.get(1).getBoolean("finished"), true);
+    // a maze built away from the game
+    t.checkExpect(events.get(2).getString("algorithm"), "prim");
+    t.checkExpect(events.get(2).getInt("cells"), 24);
+    t.checkExpect(events.get(2).getInt("steps"), prepared.steps);
+    t.checkExpect(events.get(2).getBoolean("finished"), true);
+  }
+
+  // the bytes the current thread allocates running the given number of ticks, or
+  // of the given key pressed that many times when it isn't null. They run in
+  // four rounds and the least any round allocates counts, since the JIT now and
+  // then deoptimizes under a round and allocates objects it had optimized away
+  long allocatedBy(MazeWorld world, int times, String key) {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long least = Long.MAX_VALUE;
+    for (int round = 0; round < 4; round++) {
+      long startBytes = threads.getThreadAllocatedBytes(threadId);
+      for (int i = round * times / 4; i < (round + 1) * times / 4; i++) {
+        if (key == null) {
+          world.onTick();
+        }
+        else {
+          world.onKeyEvent(key);
+        }
+      }
+      least = Math.min(least, threads.getThreadAllocatedBytes(threadId) - startBytes);
+    }
+    return least;
+  }
+
+  // tests that the ticks playing a search back or carving the maze, and the arrow
+  // keys, allocate nothing
+  void testAllocationFreeTicks(Tester t) {
+    MazeWorld world = new MazeWorld(200, 3, 0, 1000000000L).buildWorld();
+    world.onKeyEvent("b");
+    // the first tick runs the search; the ones after only play it back
+    world.onTick();
+    this.allocatedBy(world, 2000, null);
+    t.checkExpect(world.playback.cursor < world.playback.cells.length - 2000, true);
+    t.checkExpect(this.allocatedBy(world, 2000, null), 0L);
+    t.checkExpect(world.stats.tick.count, 4001L);
+    // moving by hand paints with the same shared colours
+    world.onKeyEvent("m");
+    for (int i = 0; i < 2000; i++) {
+      world.onKeyEvent("right");
+      world.onKeyEvent("left");
+      world.onKeyEvent("down");
+      world.onKeyEvent("up");
+    }
+    t.checkExpect(this.allocatedBy(world, 2000, "right"), 0L);
+    t.checkExpect(this.allocatedBy(world, 2000, "down"), 0L);
+    t.checkExpect(world.grid.colors[0], Palette.VISITED);
+    // so do the ticks animating the generation, with no recording to report to
+    MazeWorld carving = new MazeWorld(200, 3, 100000, 1000000000L).buildWorld();
+    this.allocatedBy(carving, 2000, null);
+    t.checkExpect(this.allocatedBy(carving, 2000, null), 0L);
+    t.checkExpect(carving.isGenerated(), false);
+    t.checkExpect(carving.stats.edgesProcessed >= 4000, true);
+  }
+
+  // tests that a maze the builder thread fails to build leaves the current one
+  // in play
+  void testFailedBackgroundReset(Tester t) {
+    MazeWorld world = new MazeWorld(40, 5, 0, 1000000000L).buildWorld();
+    MazeGrid old = world.grid;
+    world.onKeyEvent("r");
+    world.pending.join();
+    CompletableFuture<PreparedMaze> failed = new CompletableFuture<PreparedMaze>();
+    failed.completeExceptionally(new IllegalStateException("out of cells"));
+    world.pending = failed;
+    world.onTick();
+    t.checkExpect(world.grid == old, true);
+    t.checkExpect(world.pending, null);
+    t.checkExpect(world.preparing, null);
+    t.checkExpect(world.buildFailure.getMessage(), "out of cells");
+    // the game carries on, and the next reset builds a maze as usual
+    world.onKeyEvent("right");
+    world.onKeyEvent("r");
+    world.pending.join();
+    world.onTick();
+    t.checkExpect(world.grid == old, false);
+    t.checkExpect(this.isPerfect(world.grid), true);
+  }
+
+  // tests that "r" builds the new maze in the background and swaps it in whole
+  void testBackgroundReset(Tester t) {
+    MazeWorld world = new MazeWorld(40, 5, 0, 1000000000L).buildWorld();
+    MazeWorld same = new MazeWorld(40, 5, 0, 1000000000L).buildWorld();
+    MazeGrid old = world.grid;
+    world.onKeyEvent("right");
+    world.onKeyEvent("r");
+    // the old maze stays in play until the new one is ready
+    t.checkExpect(world.grid == old, true);
+    t.checkExpect(world.preparing.finish, true);
+    world.makeScene();
+    t.checkExpect(world.stats.imagesAllocated, 2L);
+    world.pending.join();
+    t.checkExpect(world.preparing.percentDone(), 100);
+    world.onTick();
+    t.checkExpect(world.grid == old, false);
+    t.checkExpect(world.pending, null);
+    t.checkExpect(world.isGenerated(), true);
+    t.checkExpect(this.isPerfect(world.grid), true);
+    t.checkExpect(world.curCell, 0);
+    t.checkExpect(world.gameMode, GameMode.MANUAL);
+    t.checkExpect(world.grid.colors[0], Palette.START);
+    t.checkExpect(world.grid.colors[world.lastCell()], Palette.GOAL);
+    // it is the maze the same seed builds in the foreground
+    same.buildWorld();
+    t.checkExpect(world.grid.passages, same.grid.passages);
+    t.checkExpect(world.mazeSeed, same.mazeSeed);
+    // a newer reset abandons the one before it
+    world.onKeyEvent("r");
+    PreparedMaze first = world.preparing;
+    world.onKeyEvent("r");
+    t.checkExpect(first.abandoned, true);
+    world.pending.join();
+    world.swapInPrepared();
+    t.checkExpect(world.grid == first.grid, false);
+    t.checkExpect(this.isPerfect(world.grid), true);
+    // an animated world only begins the maze, and carves it tick by tick
+    MazeWorld animated = new MazeWorld(40, 5, 10, 1000000000L).buildWorld();
+    animated.onKeyEvent("r");
+    animated.pending.join();
+    animated.onTick();
+    t.checkExpect(animated.isGenerated(), false);
+    for (int i = 0; i < 20; i++) {
+      animated.onTick();
+    }
+    t.checkExpect(this.isPerfect(animated.grid), true);
+  }
+
+  // waits until the given pool has the given number of mazes ready
+  // EFFECT: throws an IllegalStateException if that takes over ten seconds
+  void awaitPool(MazePool pool, int count) {
+    long deadline = System.nanoTime() + 10000000000L;
+    while (pool.ready.size() < count) {
+      this.pause(deadline, "the pool never had " + count + " mazes ready");
+    }
+  }
+
+  // EFFECT: sleeps a millisecond, or throws an IllegalStateException with the
+  // given message once the deadline has passed
+  void pause(long deadline, String message) {
+    if (System.nanoTime() - deadline > 0) {
+      throw new IllegalStateException(message);
+    }
+    try {
+      Thread.sleep(1);
+    }
+    catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // tests that a MazePool keeps ready mazes for resets, and counts hits and misses
+  void testMazePool(Tester t) {
+    MazeWorld world = new MazeWorld(40, 6, 0, 1000000000L).buildWorld().usePool(2, 2);
+    MazePool pool = world.pool;
+    t.checkExpect(pool.builds(40, 30, "kruskal"), true);
+    t.checkExpect(pool.builds(40, 30, "prim"), false);
+    this.awaitPool(pool, 2);
+    // a reset swaps a ready maze in on the spot
+    MazeGrid old = world.grid;
+    world.onKeyEvent("r");
+    t.checkExpect(world.grid == old, false);
+    t.checkExpect(world.pending, null);
+    t.checkExpect(world.isGenerated(), true);
+    t.checkExpect(this.isPerfect(world.grid), true);
+    t.checkExpect(world.grid.colors[world.lastCell()], Palette.GOAL);
+    t.checkExpect(pool.hits.get(), 1L);
+    // and a worker builds its replacement
+    this.awaitPool(pool, 2);
+    world.onKeyEvent("r");
+    world.onKeyEvent("r");
+    t.checkExpect(pool.hits.get(), 3L);
+    t.checkExpect(pool.misses.get(), 0L);
+    // a world of another size needs a pool of its own
+    world.xCells = 8;
+    world.yCells = 6;
+    world.onKeyEvent("r");
+    t.checkExpect(pool.closed, true);
+    t.checkExpect(world.pool.builds(8, 6, "kruskal"), true);
+    t.checkExpect(world.pool.parallelism, 2);
+    world.pool.close();
+    // an empty pool misses, and the reset falls back to the builder thread
+    MazePool slow = new MazePool(new Viewport(1000, 750, 4, 800, 600), "kruskal", true, 3, 1,
+        1);
+    t.checkExpect(slow.take(), null);
+    t.checkExpect(slow.misses.get(), 1L);
+    slow.close();
+    t.checkConstructorException(
+        new IllegalArgumentException("a maze pool needs a size and parallelism of at least 1"),
+        "MazePool", new Viewport(8, 6, 4, 800, 600), "kruskal", true, 3L, 0, 1);
+  }
+
+  // tests that closing a MazePool stops the maze its worker is part way through
+  void testMazePoolClose(Tester t) throws InterruptedException {
+    MazePool pool = new MazePool(new Viewport(1000, 750, 4, 800, 600), "kruskal", true, 3, 2,
+        1);
+    // waits for a maze that is part way through, whichever one that is
+    long deadline = System.nanoTime() + 10000000000L;
+    PreparedMaze maze = null;
+    while (maze == null) {
+      this.pause(deadline, "no maze was seen part way through its build");
+      for (PreparedMaze building : pool.building) {
+        if (building.steps > 0 && !building.generator.isDone()) {
+          maze = building;
+        }
+      }
+    }
+    pool.close();
+    t.checkExpect(pool.workers.awaitTermination(10, TimeUnit.SECONDS), true);
+    t.checkExpect(maze.abandoned, true);
+    t.checkExpect(maze.generator.isDone(), false);
+    t.checkExpect(pool.building.isEmpty(), true);
+    t.checkExpect(pool.ready.isEmpty(), true);
+  }
+
+  // tests that a Viewport fits the window, stays in the maze, and follows a cell
+  void testViewport(Tester t) {
+    Viewport view = new Viewport(1000, 750, 4, 800, 600);
+    t.checkExpect(view.columns, 200);
+    t.checkExpect(view.rows, 150);
+    t.checkExpect(view.contains(199, 149), true);
+    t.checkExpect(view.contains(200, 0), false);
+    view.pan(-10, -10);
+    t.checkExpect(view.left, 0);
+    view.pan(5000, 5000);
+    t.checkExpect(view.left, 800);
+    t.checkExpect(view.top, 600);
+    // a cell in the middle half keeps the view still
+    view.moveTo(100, 100);
+    view.follow(200, 180);
+    t.checkExpect(view.left, 100);
+    // and one past it brings the view round to it
+    view.follow(260, 180);
+    t.checkExpect(view.left, 160);
+    t.checkExpect(view.top, 105);
+    // zooming keeps the middle cell in the middle, within the size limits
+    view.zoom(8);
+    t.checkExpect(view.columns, 100);
+    t.checkExpect(view.left, 210);
+    t.checkExpect(view.top, 143);
+    view.zoom(1000);
+    t.checkExpect(view.cellSize, Viewport.MAX_CELL_SIZE);
+    view.zoom(1);
+    t.checkExpect(view.cellSize, Viewport.MIN_CELL_SIZE);
+    // a small maze is all in view
+    Viewport small = new Viewport(8, 6, 100, 800, 600);
+    t.checkExpect(small.columns, 8);
+    t.checkExpect(small.rows, 6);
+    small.follow(7, 5);
+    t.checkExpect(small.left, 0);
+    t.checkExpect(small.copy().cellSize, 100);
+  }
+
+  // tests that a maze wider than the window is drawn a window at a time, and
+  // that the view follows the player and answers the zoom and pan keys
+  void testViewportWorld(Tester t) {
+    MazeWorld world = new MazeWorld(1000, 7, 0, 1000000000L).buildWorld();
+    t.checkExpect(world.cellSize, Viewport.MIN_CELL_SIZE);
+    Viewport view = world.renderer.view;
+    world.makeScene();
+    t.checkExpect(world.renderer.raster.width, 800);
+    t.checkExpect(world.renderer.raster.height, 600);
+    // walking the shortest path takes the view along with the player
+    MazeIndex index = new MazeIndex(world.grid);
+    int[] path = index.path(0, world.lastCell());
+    for (int i = 1; i < path.length && world.curCell != world.lastCell(); i++) {
+      world.onKeyEvent(this.arrowKey(world.grid.sideTowards(world.curCell, path[i])));
+      t.checkExpect(view.contains(world.grid.xOf(world.curCell),
+          world.grid.yOf(world.curCell)), true);
+    }
+    t.checkExpect(world.curCell, world.lastCell());
+    t.checkExpect(view.left, 800);
+    t.checkExpect(view.top, 600);
+    // the pixel at the bottom right is the player's, now on the goal
+    world.makeScene();
+    t.checkExpect(world.renderer.raster.pixelAt(797, 597), Palette.ARGB[Palette.CURRENT]);
+    // looking around lasts until the player moves again
+    world.onKeyEvent("8");
+    t.checkExpect(view.top, 563);
+    world.onKeyEvent("4");
+    t.checkExpect(view.left, 750);
+    world.onKeyEvent("+");
+    t.checkExpect(view.cellSize, 8);
+    t.checkExpect(world.cellSize, 8);
+    t.checkExpect(view.contains(999, 749), true);
+    world.onKeyEvent("-");
+    world.onKeyEvent("-");
+    t.checkExpect(view.cellSize, Viewport.MIN_CELL_SIZE);
+    // a new maze keeps the zoom
+    world.onKeyEvent("+");
+    world.onKeyEvent("r");
+    world.pending.join();
+    world.onTick();
+    t.checkExpect(world.renderer.view.cellSize, 8);
+    t.checkExpect(world.renderer.view.left, 0);
+    world.makeScene();
+    t.checkExpect(world.renderer.raster.width, 800);
+    // a new maze's view follows the player from the start, even when it was
+    // shown somewhere else and the player is on the cell the old view followed
+    t.checkExpect(world.followed, 0);
+    PreparedMaze next = new PreparedMaze(new KruskalGenerator(), 8, world.newView(), true)
+        .get();
+    next.renderer.view.moveTo(300, 200);
+    world.swapIn(next);
+    t.checkExpect(world.followed, -1);
+    t.checkExpect(world.renderer.view.left, 300);
+    world.onTick();
+    t.checkExpect(world.followed, 0);
+    t.checkExpect(world.renderer.view.left, 0);
+    t.checkExpect(world.renderer.view.top, 0);
+    world.buildWorld();
+    t.checkExpect(world.followed, -1);
+  }
+
+  // the arrow key that moves towards the given side
+  String arrowKey(int side) {
+    if (side == MazeGrid.LEFT) {
+      return "left";
+    }
+    else if (side == MazeGrid.RIGHT) {
+      return "right";
+    }
+    else if (side == MazeGrid.TOP) {
+      return "up";
+    }
+    else {
+      return "down";
+    }
   }
 }